@@ -110,6 +110,10 @@ public class MainActivity extends Activity
     @Override
     public void onPause()
     {
+        //write anything pending, the app can be closed once paused
+        if (getGamePanel() != null && getGamePanel().getPersistence() != null)
+            getGamePanel().getPersistence().flush();
+        
         super.onPause();
     }
     
@@ -1,10 +1,17 @@
 package com.gamesbykevin.squares.assets;
 
 import android.app.Activity;
+import android.content.res.AssetFileDescriptor;
 
 import com.gamesbykevin.androidframework.resources.*;
+import com.gamesbykevin.squares.pack.LevelPack;
+import com.gamesbykevin.squares.pack.TextKey;
 import com.gamesbykevin.squares.panel.GamePanel;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
 /**
  * This class will contain our game assets
  * @author GOD
@@ -42,9 +49,14 @@ public class Assets
     private static final String DIRECTORY_GAME_FONT = "font/game";
     
     /**
-     * The directory where our text files are kept
+     * The directory where our level packs are kept
      */
-    private static final String DIRECTORY_TEXT = "text";
+    private static final String DIRECTORY_PACK = "pack";
+    
+    /**
+     * The level packs, in the same order as the text keys
+     */
+    private static LevelPack[] PACKS;
     
     /**
      * The different fonts used in our game.<br>
@@ -96,15 +108,6 @@ public class Assets
         PageNext, PagePrevious
     }
     
-    /**
-     * The key of each text file.<br>
-     * Order these according to the file name in the "text" assets folder.
-     */
-    public enum TextKey
-    {
-    	Easy, Expert, Hard, Normal, Twisted
-    }
-    
     /**
      * The key of each sound in our game.<br>
      * Order these according to the file name in the "audio" assets folder.
@@ -151,8 +154,65 @@ public class Assets
         //load all fonts for the game
         Font.load(activity, FontGameKey.values(), DIRECTORY_GAME_FONT, true);
         
-        //load all text files
-        Files.load(activity, TextKey.values(), DIRECTORY_TEXT, true);
+        //load all level packs
+        PACKS = new LevelPack[TextKey.values().length];
+        
+        for (TextKey key : TextKey.values())
+        {
+            PACKS[key.ordinal()] = loadLevelPack(activity, DIRECTORY_PACK + "/" + key.getFileName());
+        }
+    }
+    
+    /**
+     * Load the level pack.<br>
+     * If the asset is stored uncompressed we map it straight from the apk, otherwise we read it into memory.
+     * @param activity Object containing AssetManager needed to load assets
+     * @param path The location of the level pack in the assets folder
+     * @return The level pack
+     * @throws Exception 
+     */
+    private static LevelPack loadLevelPack(final Activity activity, final String path) throws Exception
+    {
+        AssetFileDescriptor descriptor = null;
+        
+        try
+        {
+            descriptor = activity.getAssets().openFd(path);
+        }
+        catch (IOException e)
+        {
+            //the asset is compressed and can't be mapped
+            return LevelPack.read(activity.getAssets().open(path));
+        }
+        
+        try
+        {
+            final FileInputStream input = descriptor.createInputStream();
+            
+            try
+            {
+                return new LevelPack(input.getChannel().map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength()));
+            }
+            finally
+            {
+                //the mapping stays valid once the stream is closed
+                input.close();
+            }
+        }
+        finally
+        {
+            descriptor.close();
+        }
+    }
+    
+    /**
+     * Get the level pack
+     * @param key The key of the level pack
+     * @return The level pack
+     */
+    public static LevelPack getLevelPack(final TextKey key)
+    {
+        return PACKS[key.ordinal()];
     }
     
     /**
@@ -165,7 +225,7 @@ public class Assets
             Images.dispose();
             Font.dispose();
             Audio.dispose();
-            Files.dispose();
+            PACKS = null;
         }
         catch (Exception e)
         {
@@ -1,7 +1,6 @@
 package com.gamesbykevin.squares.board;
 
 import com.gamesbykevin.androidframework.base.Entity;
-import com.gamesbykevin.androidframework.resources.Files;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
@@ -9,11 +8,17 @@ import android.graphics.Paint;
 import com.gamesbykevin.squares.assets.Assets;
 import com.gamesbykevin.squares.block.BlockKey;
 import com.gamesbykevin.squares.board.Peg.Fill;
+import com.gamesbykevin.squares.core.BitBoard;
+import com.gamesbykevin.squares.core.BoardRules;
+import com.gamesbykevin.squares.core.BoardState;
 import com.gamesbykevin.squares.game.Game;
+import com.gamesbykevin.squares.pack.LevelPack;
+import com.gamesbykevin.squares.pack.TextKey;
 import com.gamesbykevin.squares.panel.GamePanel;
 
 /**
- * The game board
+ * The game board.<br>
+ * The pegs and the rules are kept in the {@link BoardState}, this places the board on the screen, applies taps and draws it.
  * @author GOD
  */
 public final class Board extends Entity implements IBoard
@@ -21,26 +26,23 @@ public final class Board extends Entity implements IBoard
     /**
      * The default range for game play
      */
-    public static final int DIFFICULTY_RANGE_DEFAULT = 2;
+    public static final int DIFFICULTY_RANGE_DEFAULT = BoardRules.RANGE_DEFAULT;
     
     /**
      * The range for evil game play
      */
-    public static final int DIFFICULTY_RANGE_EVIL = 3;
+    public static final int DIFFICULTY_RANGE_EVIL = BoardRules.RANGE_EVIL;
     
     /**
      * The largest size of a board
      */
-    public static final int DEFAULT_SIZE = 5;
+    public static final int MAX_SIZE = BoardRules.MAX_SIZE;
     
-    //is the specified peg flagged
-    private boolean[][] flagged;
+    //the pegs and the rules of the board
+    private final BoardState state = new BoardState();
     
-    //the key to the board
-    private int[][] solution;
-    
-    //the key that the player interacts with
-    private int[][] player;
+    //the level decoded from the level pack
+    private final BitBoard decoded = new BitBoard(MAX_SIZE, MAX_SIZE);
     
     //the block key object
     private BlockKey blockKey;
@@ -48,16 +50,42 @@ public final class Board extends Entity implements IBoard
     //a peg is one of the corners of a single block
     private Peg peg;
     
-    //toggle between fill and flag
-    private boolean fill = true;
+    //locates the peg that was touched
+    private final HitTest hitTest = new HitTest();
+    
+    //the blocks and pegs drawn offscreen
+    private BoardLayer layer;
+    
+    //the part of the board shown on the screen
+    private final Camera camera = new Camera();
+    
+    //the copy of the camera used by the current frame or tap
+    private final Camera.View view = new Camera.View();
     
     /**
      * The amount of pixels on each side
      */
     private static final int PIXEL_PADDING = 10;
     
-    //store the dimensions
-    private int cols, rows;
+    /**
+     * The fewest blocks the cell size is divided by, so small boards are not stretched to fill the screen
+     */
+    private static final int MIN_BLOCKS = 4;
+    
+    /**
+     * The y-coordinate of the top of the board
+     */
+    private static final int BOARD_Y = PIXEL_PADDING * 4;
+    
+    /**
+     * The size of the peg that switches between fill and flag, this does not change with the board size
+     */
+    private static final int FILL_SIZE = 43;
+    
+    /**
+     * The size of a block we can zoom in to, so the pegs of a large board are easy to read and tap
+     */
+    private static final int ZOOM_SIZE = 100;
     
     /**
      * Create a new Board
@@ -74,12 +102,8 @@ public final class Board extends Entity implements IBoard
         //create a new peg
         this.peg = new Peg();
         
-        //create the new key for the player and the solution
-        this.solution = new int[Board.DEFAULT_SIZE + 1][Board.DEFAULT_SIZE + 1];
-        this.player = new int[solution.length][solution[0].length];
-        
-        //create a new flagged list
-        this.flagged = new boolean[solution.length][solution[0].length];
+        //create the offscreen layer, the image is created once we know the size
+        this.layer = new BoardLayer();
     }
     
     /**
@@ -88,7 +112,7 @@ public final class Board extends Entity implements IBoard
      */
     public int getCols()
     {
-        return this.cols;
+        return state.getCols();
     }
     
     /**
@@ -97,7 +121,7 @@ public final class Board extends Entity implements IBoard
      */
     public int getRows()
     {
-        return this.rows;
+        return state.getRows();
     }
     
     @Override
@@ -111,134 +135,87 @@ public final class Board extends Entity implements IBoard
             peg = null;
         }
         
+        if (layer != null)
+        {
+            layer.dispose();
+            layer = null;
+        }
+        
         if (blockKey != null)
         {
             blockKey.dispose();
             blockKey = null;
         }
-        
-        this.solution = null;
-        this.player = null;
-        this.flagged = null;
     }
     
     /**
      * Reset the board
-     * @param key They key of the text file asset containing the levels
+     * @param key They key of the level pack containing the levels
      * @param levelIndex The desired level
      * @param hint Do we reveal the solution to a row or column?
      * @throws Exception
      */
     @Override
-    public final void reset(final Assets.TextKey key, final int levelIndex, final boolean hint) throws Exception
+    public final void reset(final TextKey key, final int levelIndex, final boolean hint) throws Exception
     {
-    	//default to filling the pegs
-    	this.fill = true;
-    	
-        //reset all to 0
-        for (int row = 0; row < getSolution().length; row++)
-        {
-            for (int col  = 0; col < getSolution()[0].length; col++)
-            {
-                getPlayer()[row][col] = 0;
-                getSolution()[row][col] = 0;
-                getFlagged()[row][col] = false;
-            }
-        }
-        
-    	//get the line representing the solution in our text file
-    	final String line = Files.getText(key).getLines().get(levelIndex);
+    	//get the level pack containing the solution
+    	final LevelPack pack = Assets.getLevelPack(key);
         
-    	//determine the size of the board
-    	if (line.length() == 16)
-    	{
-    		this.cols = 4;
-    		this.rows = 4;
-    	}
-    	else
-    	{
-    		this.cols = 6;
-    		this.rows = 6;
-    	}
-    	
-    	//the range of the peg we can select
-    	int range = 0;
+    	//decode the solution from the level pack, the range of the peg we can select is returned
+    	this.decoded.reset(pack.getCols(levelIndex), pack.getRows(levelIndex));
+    	final int range = pack.decode(levelIndex, this.decoded);
     	
-        for (int row = 0; row < getRows(); row++)
-        {
-            for (int col  = 0; col < getCols(); col++)
-            {
-            	//calculate the character position
-            	final int index = (row * getCols()) + col;
-            	
-            	//get the key
-            	final int tmp = Integer.parseInt(line.substring(index, index + 1));
-            	
-            	//assign the key to the solution
-            	getSolution()[row][col] = tmp;
-            	
-            	//check if we have a new range
-            	if (tmp >= range)
-            		range = tmp + 1;
-            }
-        }
+    	//assign the solution
+    	state.reset(this.decoded, range);
         
-        //if we have a hint enabled
+        //finish setting up the board
+        reset(hint);
+    }
+    
+    /**
+     * Reset the board with a generated level
+     * @param key The value of every peg [rows][cols]
+     * @param range The number of values each peg can have
+     * @param hint Do we reveal the solution to a row or column?
+     * @throws Exception
+     */
+    @Override
+    public final void reset(final int[][] key, final int range, final boolean hint) throws Exception
+    {
+    	//assign the generated solution
+    	state.reset(key, range);
+        
+        //finish setting up the board
+        reset(hint);
+    }
+    
+    /**
+     * Finish resetting the board once the solution has been assigned
+     * @param hint Do we reveal the solution to a row or column?
+     * @throws Exception
+     */
+    private void reset(final boolean hint) throws Exception
+    {
+        //if we have a hint enabled, reveal a row or column
         if (hint)
-        {
-        	//decide if we reveal a row or column
-        	if (GamePanel.RANDOM.nextBoolean())
-        	{
-        		//we will reveal a row
-        		final int row = GamePanel.RANDOM.nextInt(getRows());
-        		
-        		//reveal every column in the row
-                for (int col  = 0; col < getCols(); col++)
-                {
-                    getPlayer()[row][col] = getSolution()[row][col];
-                    
-                    //if 0 lets flag this one
-                    if (getPlayer()[row][col] == 0)
-                    	getFlagged()[row][col] = true;
-                }
-        	}
-        	else
-        	{
-        		//we will reveal a column
-        		final int col = GamePanel.RANDOM.nextInt(getCols());
-        		
-        		//reveal every row in the column
-                for (int row = 0; row < getRows(); row++)
-                {
-                	getPlayer()[row][col] = getSolution()[row][col];
-                	
-                    //if 0 lets flag this one
-                    if (getPlayer()[row][col] == 0)
-                    	getFlagged()[row][col] = true;
-                }
-        	}
-        }
+        	state.reveal(GamePanel.RANDOM);
         
-        //set dimension accordingly
-        if (getCols() == 6)
-        {
-            //assign cell dimensions
-            super.setWidth((GamePanel.WIDTH / (getCols() - 1)) - PIXEL_PADDING);
-            super.setHeight(super.getWidth());
-        }
-        else
-        {
-            //assign cell dimensions
-            super.setWidth((GamePanel.WIDTH / getCols()) - PIXEL_PADDING);
-            super.setHeight(super.getWidth());
-        }
+        //fit the blocks across the screen, leaving padding for the pegs on the edge
+        final double cellWidth = (GamePanel.WIDTH - (PIXEL_PADDING * 5)) / (double)Math.max(getCols() - 1, MIN_BLOCKS);
+        
+        //and between the top of the screen and the fill option
+        final double cellHeight = (getFillY() - BOARD_Y - PIXEL_PADDING) / (double)Math.max(getRows() - 1, MIN_BLOCKS);
+        
+        //the blocks are square
+        super.setWidth(Math.min(cellWidth, cellHeight));
+        super.setHeight(super.getWidth());
         
         //assign the single block dimension
         blockKey.setWidth(getWidth());
         blockKey.setHeight(getHeight());
         
         //assign the range
-        this.peg.setRange(range);
+        this.peg.setRange(state.getRange());
         
         //assign the peg dimensions, now that the board width is set
         this.peg.setWidth(getWidth() * .5);
@@ -249,34 +226,68 @@ public final class Board extends Entity implements IBoard
         
         //position the start point in the middle
         setX((GamePanel.WIDTH / 2) - (width / 2));
-        setY(PIXEL_PADDING * 4);
+        setY(BOARD_Y);
+        
+        //the pegs are centered on the corners of each block
+        hitTest.setBoard(getCols(), getRows(), getX(), getY(), getWidth(), getHeight(), peg.getWidth(), peg.getHeight());
+        
+        //the pegs on the edge stick out half a peg past the blocks
+        layer.reset(
+        	(int)Math.floor(getX() - (peg.getWidth() / 2)), 
+        	(int)Math.floor(getY() - (peg.getHeight() / 2)), 
+        	(int)Math.ceil(width + peg.getWidth()) + 2, 
+        	(int)Math.ceil(((getRows() - 1) * getHeight()) + peg.getHeight()) + 2, 
+        	getCols() * getRows()
+        );
+        
+        //the board is shown above the fill option, and can be zoomed until a block is a readable size
+        camera.reset(0, 0, GamePanel.WIDTH, getFillY(), (float)(ZOOM_SIZE / getWidth()));
+    }
+    
+    /**
+     * Get the hit test
+     * @return The object that locates the peg that was touched
+     */
+    public HitTest getHitTest()
+    {
+        return this.hitTest;
+    }
+    
+    /**
+     * Get the camera
+     * @return The object to pan and zoom the board
+     */
+    public Camera getCamera()
+    {
+        return this.camera;
     }
     
     /**
-     * Get the key board
-     * @return The key to solve the board
+     * Get the state
+     * @return The pegs and the rules of the board
      */
-    protected int[][] getSolution()
+    public BoardState getState()
     {
-        return this.solution;
+        return this.state;
     }
     
     /**
-     * Get the player key
-     * @return The key of player selections
+     * Get the number of mismatched blocks
+     * @return The number of blocks where the player count is not equal to the solution count
      */
-    protected int[][] getPlayer()
+    public int getMismatches()
     {
-        return this.player;
+        return state.getMismatches();
     }
     
     /**
-     * Get the flagged key
-     * @return The key containing which locations are flagged
+     * Do we have a match?<br>
+     * The mismatch count is kept up to date as each peg changes, so this check is constant time.
+     * @return true if every block count matches the solution, false otherwise
      */
-    protected boolean[][] getFlagged()
+    public boolean hasMatch()
     {
-    	return this.flagged;
+        return state.hasMatch();
     }
     
     private int getFillX()
@@ -286,7 +297,7 @@ public final class Board extends Entity implements IBoard
     
     private int getFillY()
     {
-    	return (int)(Game.LOCATION_TIMER_Y - peg.getHeight() - (peg.getHeight() / 2));
+    	return (int)(Game.LOCATION_TIMER_Y - FILL_SIZE - (FILL_SIZE / 2));
     }
     
     /**
@@ -296,54 +307,26 @@ public final class Board extends Entity implements IBoard
      */
     public void update(final float x, final float y)
     {
-        //render the pegs
-        for (int row = 0; row < getRows(); row++)
+        //the touch goes through the same pan and zoom the board is drawn with
+        camera.copyTo(view);
+        hitTest.setViewport(view.getScale(), view.getOffsetX(), view.getOffsetY());
+        
+        //locate the peg that was touched, if any, a zoomed peg may be hidden outside of the camera
+        final int index = (view.contains(x, y)) ? hitTest.getIndex(x, y) : HitTest.MISS;
+        
+        if (index != HitTest.MISS)
         {
-            for (int col  = 0; col < getCols(); col++)
-            {
-            	//calculate coordinates
-            	peg.setX(BoardHelper.getStartX(this, col));
-            	peg.setY(BoardHelper.getStartY(this, row));
-            	
-                //if the coordinate is inside the object
-                if (peg.contains(x, y))
-                {
-                	//if we want to fill
-                	if (fill)
-                	{
-                    	//if this location is flagged, we can't continue
-                    	if (getFlagged()[row][col])
-                    		continue;
-                		
-                        //increase the count
-                        getPlayer()[row][col]++;
-                        
-                        //if out of range, reset
-                        if (getPlayer()[row][col] >= peg.getRange())
-                            getPlayer()[row][col] = 0;
-                	}
-                	else
-                	{
-                		//if flagged undo and vice versa
-            			getFlagged()[row][col] = !getFlagged()[row][col];
-            			
-            			//reset back to 0
-            			getPlayer()[row][col] = 0;
-                	}
-                	
-                	//no need to continue
-                	return;
-                }
-            }
+        	//the peg and its blocks need to be drawn again if the peg changed
+        	if (state.apply(hitTest.getCol(index), hitTest.getRow(index)))
+        		layer.invalidate(index);
+        	
+        	//no need to continue
+        	return;
         }
         
-        //check the fill peg
-        peg.setX(getFillX());
-        peg.setY(getFillY());
-        
-        //if the coordinate is inside the object flip the setting
-        if (peg.getDestination().contains((int)x, (int)y))
-        	this.fill = !this.fill;
+        //if the coordinate is inside the fill peg flip the setting, the peg is only moved when it is rendered
+        if (x >= getFillX() && x < getFillX() + FILL_SIZE && y >= getFillY() && y < getFillY() + FILL_SIZE)
+        	state.toggleFill();
     }
     
     /**
@@ -354,17 +337,131 @@ public final class Board extends Entity implements IBoard
      */
     @Override
     public void render(final Canvas canvas, final Paint paint) throws Exception
+    {
+        //the camera can move while we draw, so use the same pan and zoom for the whole frame
+        camera.copyTo(view);
+        
+        if (view.isZoomed())
+        {
+        	//draw only what the camera can see, the layer catches up with the changes once we zoom out
+        	renderZoomed(canvas);
+        }
+        else
+        {
+        	renderLayer(canvas);
+        }
+        
+        //the peg flag option is the same size on every board, so keep the size of the board pegs
+        final double width = peg.getWidth();
+        final double height = peg.getHeight();
+        
+        //render the peg flag option
+        peg.setX(getFillX());
+        peg.setY(getFillY());
+        peg.setWidth(FILL_SIZE);
+        peg.setHeight(FILL_SIZE);
+    	peg.getSpritesheet().setKey((!state.isFill()) ? Fill.Flagged : Fill.Full);
+    	peg.render(canvas);
+    	
+    	//restore the size of the board pegs
+    	peg.setWidth(width);
+    	peg.setHeight(height);
+    	
+    	canvas.drawText(
+    		(state.isFill()) ? " - Solve Game" : " - Flag Peg", 
+    		(int)(getFillX() + FILL_SIZE), 
+    		(int)((getFillY() + FILL_SIZE) - (FILL_SIZE * .33)), 
+    		paint
+    	);
+    }
+    
+    /**
+     * Bring the offscreen layer up to date and draw it
+     * @param canvas Object to write pixels to
+     * @throws Exception
+     */
+    private void renderLayer(final Canvas canvas) throws Exception
+    {
+        if (layer.isInvalid())
+        {
+        	//draw the whole board to the layer
+        	final Canvas tmp = layer.begin();
+        	renderBlocks(tmp, 0, 0, getCols() - 2, getRows() - 2);
+        	renderPegs(tmp, 0, 0, getCols() - 1, getRows() - 1);
+        	layer.end();
+        }
+        else
+        {
+        	//only draw the blocks around each peg that changed
+        	for (int index = 0; index < layer.getDirtyCount(); index++)
+        	{
+        		final int col = layer.getDirty(index) % getCols();
+        		final int row = layer.getDirty(index) / getCols();
+        		
+        		//the 4 blocks sharing the peg, anything drawn outside of them is ignored
+        		final Canvas tmp = layer.begin(
+        			BoardHelper.getStartX(this, col - 1), 
+        			BoardHelper.getStartY(this, row - 1), 
+        			BoardHelper.getStartX(this, col + 1), 
+        			BoardHelper.getStartY(this, row + 1)
+        		);
+        		
+        		//the blocks and pegs that overlap the area
+        		renderBlocks(tmp, col - 2, row - 2, col + 1, row + 1);
+        		renderPegs(tmp, col - 1, row - 1, col + 1, row + 1);
+        		layer.end();
+        	}
+        }
+        
+        //the layer is up to date
+        layer.validate();
+        
+        //draw the blocks and pegs
+        layer.render(canvas);
+    }
+    
+    /**
+     * Draw the blocks and pegs the camera can see directly to the canvas.<br>
+     * The cost depends on how many blocks are shown, not the size of the board.
+     * @param canvas Object to write pixels to
+     * @throws Exception
+     */
+    private void renderZoomed(final Canvas canvas) throws Exception
+    {
+        //the columns and rows inside the camera, rounded out so the pegs on the edge are included
+        final int startCol = (int)Math.floor((view.getVisibleLeft() - getX()) / getWidth());
+        final int startRow = (int)Math.floor((view.getVisibleTop() - getY()) / getHeight());
+        final int endCol = (int)Math.ceil((view.getVisibleRight() - getX()) / getWidth());
+        final int endRow = (int)Math.ceil((view.getVisibleBottom() - getY()) / getHeight());
+        
+        canvas.save();
+        view.apply(canvas);
+        renderBlocks(canvas, startCol, startRow, endCol, endRow);
+        renderPegs(canvas, startCol, startRow, endCol, endRow);
+        canvas.restore();
+    }
+    
+    /**
+     * Render the block keys in the area
+     * @param canvas Object to write pixels to
+     * @param startCol The first column
+     * @param startRow The first row
+     * @param endCol The last column
+     * @param endRow The last row
+     * @throws Exception
+     */
+    private void renderBlocks(final Canvas canvas, final int startCol, final int startRow, final int endCol, final int endRow) throws Exception
     {
         //render the block keys
-        for (int row = 0; row < getRows() - 1; row++)
+        for (int row = Math.max(startRow, 0); row <= Math.min(endRow, getRows() - 2); row++)
         {
-            for (int col  = 0; col < getCols() - 1; col++)
+            for (int col = Math.max(startCol, 0); col <= Math.min(endCol, getCols() - 2); col++)
             {
                 //the actual solution count
-                final int countSolution = BoardHelper.getCount(getSolution(), col, row);
+                final int countSolution = state.getSolutionCount(col, row);
 
                 //the count of the player entry
-                final int countPlayer = BoardHelper.getCount(getPlayer(), col, row);
+                final int countPlayer = state.getPlayerCount(col, row);
 
                 //assign the proper animation
                 blockKey.setAnimation(countSolution, countPlayer);
@@ -375,35 +472,34 @@ public final class Board extends Entity implements IBoard
                 blockKey.render(canvas);
             }
         }
-        
+    }
+    
+    /**
+     * Render the pegs in the area
+     * @param canvas Object to write pixels to
+     * @param startCol The first column
+     * @param startRow The first row
+     * @param endCol The last column
+     * @param endRow The last row
+     * @throws Exception
+     */
+    private void renderPegs(final Canvas canvas, final int startCol, final int startRow, final int endCol, final int endRow) throws Exception
+    {
         //render the pegs
-        for (int row = 0; row < getRows(); row++)
+        for (int row = Math.max(startRow, 0); row <= Math.min(endRow, getRows() - 1); row++)
         {
-            for (int col  = 0; col < getCols(); col++)
+            for (int col = Math.max(startCol, 0); col <= Math.min(endCol, getCols() - 1); col++)
             {
                 //calculate coordinates
                 peg.setX(BoardHelper.getStartX(this, col) - (peg.getWidth() / 2));
                 peg.setY(BoardHelper.getStartY(this, row) - (peg.getHeight() / 2));
                 
                 //assign the animation
-                peg.setAnimation(getPlayer()[row][col], getFlagged()[row][col]);
+                peg.setAnimation(state.getValue(col, row), state.isFlagged(col, row));
                 
                 //render the image
                 peg.render(canvas);
             }
         }
-        
-        //render the peg flag option
-        peg.setX(getFillX());
-        peg.setY(getFillY());
-    	peg.getSpritesheet().setKey((!fill) ? Fill.Flagged : Fill.Full);
-    	peg.render(canvas);
-    	
-    	canvas.drawText(
-    		(fill) ? " - Solve Game" : " - Flag Peg", 
-    		(int)(getFillX() + peg.getWidth()), 
-    		(int)((getFillY() + peg.getHeight()) - (peg.getHeight() * .33)), 
-    		paint
-    	);
     }
 }
\ No newline at end of file
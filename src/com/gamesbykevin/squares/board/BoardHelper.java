@@ -1,11 +1,25 @@
 package com.gamesbykevin.squares.board;
 
+import com.gamesbykevin.squares.core.BitBoard;
+import com.gamesbykevin.squares.core.BoardRules;
+
 /**
- * Board helper methods
+ * Board helper methods.<br>
+ * The rules themselves are in {@link BoardRules}, so they can be used without Android.
  * @author GOD
  */
 public class BoardHelper 
 {
+    /**
+     * Get the dimension of the level
+     * @param line The line from the level text file, each character is the value of a peg
+     * @return The number of columns and rows of the square board
+     */
+    public static final int getDimension(final String line)
+    {
+    	return BoardRules.getDimension(line);
+    }
+    
     /**
      * Do we have a match?
      * @param board The board containing the player and solution we want to check
@@ -13,7 +27,18 @@ public class BoardHelper
      */
     public static final boolean hasMatch(final Board board)
     {
-    	return hasMatch(board.getSolution(), board.getPlayer());
+    	return board.hasMatch();
+    }
+    
+    /**
+     * Do we have a match?
+     * @param solution The packed solution key to the board
+     * @param player The packed player key with their findings
+     * @return true if the supplied player key matches the solution key
+     */
+    public static final boolean hasMatch(final BitBoard solution, final BitBoard player)
+    {
+        return BoardRules.hasMatch(solution, player);
     }
     
     /**
@@ -24,19 +49,7 @@ public class BoardHelper
      */
     public static final boolean hasMatch(final int[][] solution, final int[][] player)
     {
-        //make sure each location matches
-        for (int row = 0; row < solution.length - 1; row++)
-        {
-            for (int col = 0; col < solution[0].length - 1; col++)
-            {
-                //if the count is not equal, there is no match
-                if (getCount(player, col, row) != getCount(solution, col, row))
-                    return false;
-            }
-        }
-        
-        //we made it here, and now found a match
-        return true;
+        return BoardRules.hasMatch(solution, player);
     }
     
     /**
@@ -68,16 +81,8 @@ public class BoardHelper
      * @param row Row
      * @return The total of all 4 neighboring corners
      */
-    protected static final int getCount(final int[][] key, final int col, final int row)
+    public static final int getCount(final int[][] key, final int col, final int row)
     {
-        int count = 0;
-        
-        //add to total count
-        count += key[row][col];
-        count += key[row][col + 1];
-        count += key[row + 1][col];
-        count += key[row + 1][col + 1];
-        
-        return count;
+        return BoardRules.getCount(key, col, row);
     }
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.gamesbykevin.squares.board;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+
+import com.gamesbykevin.androidframework.resources.Disposable;
+
+/**
+ * An offscreen image of the board.<br>
+ * The blocks and pegs are drawn to the layer once when the level is reset,
+ * then only the area around a peg that changed is drawn again, and each frame is a single bitmap draw.<br>
+ * The layer uses the same coordinates as the screen, it is translated to its position when drawn to.
+ * @author GOD
+ */
+public final class BoardLayer implements Disposable
+{
+    //the image of the board
+    private Bitmap bitmap;
+    
+    //used to draw to the image
+    private Canvas canvas;
+    
+    //used to erase an area of the image
+    private Paint clear;
+    
+    //where the layer is drawn on the screen
+    private int x, y;
+    
+    //does the whole layer need to be drawn
+    private boolean invalid = true;
+    
+    //the index of each peg that changed since the layer was drawn
+    private int[] dirty = new int[0];
+    
+    //the number of pegs that changed
+    private int dirtyCount = 0;
+    
+    /**
+     * Create a new layer
+     */
+    public BoardLayer()
+    {
+        this.canvas = new Canvas();
+        
+        this.clear = new Paint();
+        this.clear.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+    }
+    
+    /**
+     * Reset the layer for a new level, the whole layer will need to be drawn
+     * @param x x-coordinate of the layer on the screen
+     * @param y y-coordinate of the layer on the screen
+     * @param width The width of the layer
+     * @param height The height of the layer
+     * @param pegs The number of pegs on the board
+     */
+    public void reset(final int x, final int y, final int width, final int height, final int pegs)
+    {
+        this.x = x;
+        this.y = y;
+        
+        //only create a new image if the current one is too small
+        if (bitmap == null || bitmap.getWidth() < width || bitmap.getHeight() < height)
+        {
+            if (bitmap != null)
+                bitmap.recycle();
+            
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            canvas.setBitmap(bitmap);
+        }
+        
+        if (dirty.length < pegs)
+            dirty = new int[pegs];
+        
+        invalidate();
+    }
+    
+    /**
+     * Flag the whole layer to be drawn
+     */
+    public void invalidate()
+    {
+        this.invalid = true;
+        this.dirtyCount = 0;
+    }
+    
+    /**
+     * Flag the area around the peg to be drawn
+     * @param index The index of the peg that changed
+     */
+    public void invalidate(final int index)
+    {
+        //the whole layer is already going to be drawn
+        if (invalid)
+            return;
+        
+        //don't add the same peg twice
+        for (int i = 0; i < dirtyCount; i++)
+        {
+            if (dirty[i] == index)
+                return;
+        }
+        
+        //if there are too many changes, draw everything
+        if (dirtyCount >= dirty.length)
+        {
+            invalidate();
+            return;
+        }
+        
+        dirty[dirtyCount] = index;
+        dirtyCount++;
+    }
+    
+    /**
+     * Does the whole layer need to be drawn?
+     * @return true if the whole layer needs to be drawn, false otherwise
+     */
+    public boolean isInvalid()
+    {
+        return this.invalid;
+    }
+    
+    /**
+     * Get the number of pegs that changed
+     * @return The number of pegs whose area needs to be drawn
+     */
+    public int getDirtyCount()
+    {
+        return this.dirtyCount;
+    }
+    
+    /**
+     * Get the peg that changed
+     * @param index The position in the list of changes
+     * @return The index of the peg
+     */
+    public int getDirty(final int index)
+    {
+        return this.dirty[index];
+    }
+    
+    /**
+     * Start drawing the whole layer, the layer is erased first.<br>
+     * {@link #end()} must be called when finished.
+     * @return The canvas to draw to using screen coordinates
+     */
+    public Canvas begin()
+    {
+        bitmap.eraseColor(Color.TRANSPARENT);
+        
+        canvas.save();
+        canvas.translate(-x, -y);
+        
+        return canvas;
+    }
+    
+    /**
+     * Start drawing an area of the layer, the area is erased first and anything drawn outside the area is ignored.<br>
+     * {@link #end()} must be called when finished.
+     * @param left Left side of the area on the screen
+     * @param top Top side of the area on the screen
+     * @param right Right side of the area on the screen
+     * @param bottom Bottom side of the area on the screen
+     * @return The canvas to draw to using screen coordinates
+     */
+    public Canvas begin(final float left, final float top, final float right, final float bottom)
+    {
+        canvas.save();
+        canvas.translate(-x, -y);
+        canvas.clipRect(left, top, right, bottom);
+        canvas.drawRect(left, top, right, bottom, clear);
+        
+        return canvas;
+    }
+    
+    /**
+     * Finish drawing to the layer
+     */
+    public void end()
+    {
+        canvas.restore();
+    }
+    
+    /**
+     * The layer is up to date
+     */
+    public void validate()
+    {
+        this.invalid = false;
+        this.dirtyCount = 0;
+    }
+    
+    /**
+     * Draw the layer
+     * @param canvas Object to write pixels to
+     */
+    public void render(final Canvas canvas)
+    {
+        canvas.drawBitmap(bitmap, x, y, null);
+    }
+    
+    @Override
+    public void dispose()
+    {
+        if (bitmap != null)
+        {
+            bitmap.recycle();
+            bitmap = null;
+        }
+        
+        canvas = null;
+        clear = null;
+    }
+}
\ No newline at end of file
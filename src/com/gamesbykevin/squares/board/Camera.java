@@ -0,0 +1,382 @@
+package com.gamesbykevin.squares.board;
+
+import android.graphics.Canvas;
+import android.view.MotionEvent;
+
+/**
+ * The part of the board shown on the screen.<br>
+ * A pinch with 2 fingers zooms and a drag pans, screen = (board * scale) + offset.
+ * The board can not be panned past the area it is shown in, so at a scale of 1 the board is where it was placed.<br>
+ * Touch events come from the ui thread while the board is drawn on the game thread, so the methods are synchronized.
+ * The game thread reads a {@link View} copied under the lock, so the scale and offsets it uses are always from the same moment.
+ * @author GOD
+ */
+public final class Camera
+{
+    /**
+     * How far (pixels) a single finger has to move before it is a drag and not a tap
+     */
+    private static final float TOUCH_SLOP = 12;
+    
+    //the area of the screen the board is shown in
+    private float left, top, right, bottom;
+    
+    //the largest zoom allowed
+    private float maxScale = 1;
+    
+    //the zoom and pan, screen = (board * scale) + offset
+    private float scale = 1, offsetX = 0, offsetY = 0;
+    
+    //the previous location of the finger(s)
+    private float lastX, lastY, lastDistance;
+    
+    //did the finger(s) pan or zoom since they went down
+    private boolean gesture = false;
+    
+    //is a single finger dragging the board
+    private boolean dragging = false;
+    
+    //did the number of fingers change, if so the previous location is not valid
+    private boolean moved = false;
+    
+    /**
+     * Create a new camera
+     */
+    public Camera()
+    {
+        //the area is assigned when the board is reset
+    }
+    
+    /**
+     * Reset the camera to show the whole board
+     * @param left x-coordinate of the area the board is shown in
+     * @param top y-coordinate of the area the board is shown in
+     * @param right x-coordinate of the right side of the area
+     * @param bottom y-coordinate of the bottom of the area
+     * @param maxScale The largest zoom allowed, 1 will not allow any zoom
+     */
+    public synchronized void reset(final float left, final float top, final float right, final float bottom, final float maxScale)
+    {
+        if (right <= left || bottom <= top)
+            throw new IllegalArgumentException("Invalid area - " + left + "," + top + "," + right + "," + bottom);
+        
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+        this.maxScale = Math.max(maxScale, 1);
+        this.scale = 1;
+        this.offsetX = 0;
+        this.offsetY = 0;
+    }
+    
+    /**
+     * Zoom around the specified point, the point stays in the same place on the screen
+     * @param factor The amount to multiply the current scale by
+     * @param focusX x-coordinate on the screen
+     * @param focusY y-coordinate on the screen
+     */
+    public synchronized void zoom(final float factor, final float focusX, final float focusY)
+    {
+        final float previous = this.scale;
+        
+        this.scale = Math.max(1, Math.min(maxScale, previous * factor));
+        
+        //the board coordinate under the focus
+        final float boardX = (focusX - offsetX) / previous;
+        final float boardY = (focusY - offsetY) / previous;
+        
+        this.offsetX = focusX - (boardX * scale);
+        this.offsetY = focusY - (boardY * scale);
+        
+        clamp();
+    }
+    
+    /**
+     * Move the board on the screen
+     * @param dx The horizontal distance (pixels)
+     * @param dy The vertical distance (pixels)
+     */
+    public synchronized void pan(final float dx, final float dy)
+    {
+        this.offsetX += dx;
+        this.offsetY += dy;
+        
+        clamp();
+    }
+    
+    /**
+     * Keep the shown part of the board inside the area
+     */
+    private void clamp()
+    {
+        this.offsetX = Math.max(right * (1 - scale), Math.min(left * (1 - scale), offsetX));
+        this.offsetY = Math.max(bottom * (1 - scale), Math.min(top * (1 - scale), offsetY));
+    }
+    
+    /**
+     * Is the board zoomed in?
+     * @return true if the scale is more than 1, false otherwise
+     */
+    public synchronized boolean isZoomed()
+    {
+        return (scale > 1);
+    }
+    
+    /**
+     * Copy the area, zoom and pan all at once
+     * @param view Object to copy to
+     */
+    public synchronized void copyTo(final View view)
+    {
+        view.left = left;
+        view.top = top;
+        view.right = right;
+        view.bottom = bottom;
+        view.scale = scale;
+        view.offsetX = offsetX;
+        view.offsetY = offsetY;
+    }
+    
+    /**
+     * Pan and zoom from the motion event
+     * @param event Motion Event
+     * @param scaleX Multiplied by the x-coordinate of each finger to get the location on the screen
+     * @param scaleY Multiplied by the y-coordinate of each finger to get the location on the screen
+     * @return true if the fingers have panned or zoomed and should not be treated as a tap, false otherwise
+     */
+    public boolean update(final MotionEvent event, final float scaleX, final float scaleY)
+    {
+        switch (event.getActionMasked())
+        {
+            case MotionEvent.ACTION_DOWN:
+                gesture = false;
+                dragging = false;
+                track(event, scaleX, scaleY);
+                return false;
+            
+            case MotionEvent.ACTION_POINTER_DOWN:
+            case MotionEvent.ACTION_POINTER_UP:
+                //a second finger is never a tap
+                gesture = true;
+                dragging = false;
+                moved = true;
+                return true;
+            
+            case MotionEvent.ACTION_MOVE:
+                //the fingers changed, start from where they are now
+                if (moved)
+                {
+                    track(event, scaleX, scaleY);
+                    return gesture;
+                }
+                
+                final float x = getFocusX(event, scaleX);
+                final float y = getFocusY(event, scaleY);
+                
+                if (event.getPointerCount() > 1)
+                {
+                    //zoom by how much the fingers spread and pan by how much they moved together
+                    final float distance = getDistance(event, scaleX, scaleY);
+                    
+                    if (lastDistance > 0 && distance > 0)
+                        zoom(distance / lastDistance, x, y);
+                    
+                    pan(x - lastX, y - lastY);
+                    lastDistance = distance;
+                }
+                else
+                {
+                    //a single finger only drags if the board is zoomed and has moved far enough
+                    if (!dragging && isZoomed() && Math.abs(x - lastX) + Math.abs(y - lastY) > TOUCH_SLOP)
+                    {
+                        dragging = true;
+                        gesture = true;
+                    }
+                    
+                    //until it drags, keep the location where the finger went down
+                    if (!dragging)
+                        return gesture;
+                    
+                    pan(x - lastX, y - lastY);
+                }
+                
+                lastX = x;
+                lastY = y;
+                return gesture;
+            
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                dragging = false;
+                return gesture;
+            
+            default:
+                return gesture;
+        }
+    }
+    
+    /**
+     * Remember the current location of the finger(s)
+     * @param event Motion Event
+     * @param scaleX Multiplied by the x-coordinate of each finger
+     * @param scaleY Multiplied by the y-coordinate of each finger
+     */
+    private void track(final MotionEvent event, final float scaleX, final float scaleY)
+    {
+        lastX = getFocusX(event, scaleX);
+        lastY = getFocusY(event, scaleY);
+        lastDistance = (event.getPointerCount() > 1) ? getDistance(event, scaleX, scaleY) : 0;
+        moved = false;
+    }
+    
+    /**
+     * Get the x-coordinate in the middle of the first 2 fingers
+     * @param event Motion Event
+     * @param scaleX Multiplied by the x-coordinate of each finger
+     * @return x-coordinate on the screen
+     */
+    private static float getFocusX(final MotionEvent event, final float scaleX)
+    {
+        if (event.getPointerCount() > 1)
+            return ((event.getX(0) + event.getX(1)) / 2) * scaleX;
+        
+        return event.getX(0) * scaleX;
+    }
+    
+    /**
+     * Get the y-coordinate in the middle of the first 2 fingers
+     * @param event Motion Event
+     * @param scaleY Multiplied by the y-coordinate of each finger
+     * @return y-coordinate on the screen
+     */
+    private static float getFocusY(final MotionEvent event, final float scaleY)
+    {
+        if (event.getPointerCount() > 1)
+            return ((event.getY(0) + event.getY(1)) / 2) * scaleY;
+        
+        return event.getY(0) * scaleY;
+    }
+    
+    /**
+     * Get the distance between the first 2 fingers
+     * @param event Motion Event
+     * @param scaleX Multiplied by the x-coordinate of each finger
+     * @param scaleY Multiplied by the y-coordinate of each finger
+     * @return The distance on the screen (pixels)
+     */
+    private static float getDistance(final MotionEvent event, final float scaleX, final float scaleY)
+    {
+        final float dx = (event.getX(0) - event.getX(1)) * scaleX;
+        final float dy = (event.getY(0) - event.getY(1)) * scaleY;
+        
+        return (float)Math.sqrt((dx * dx) + (dy * dy));
+    }
+    
+    /**
+     * A copy of the area, zoom and pan of the camera.<br>
+     * The ui thread can move the camera at any time, so a frame or a tap copies it once and uses the copy throughout.
+     */
+    public static final class View
+    {
+        //the area of the screen the board is shown in
+        private float left, top, right, bottom;
+        
+        //the zoom and pan, screen = (board * scale) + offset
+        private float scale = 1, offsetX = 0, offsetY = 0;
+        
+        /**
+         * Is the board zoomed in?
+         * @return true if the scale is more than 1, false otherwise
+         */
+        public boolean isZoomed()
+        {
+            return (scale > 1);
+        }
+        
+        /**
+         * Is the coordinate inside the area the board is shown in?
+         * @param x x-coordinate on the screen
+         * @param y y-coordinate on the screen
+         * @return true if the coordinate is inside the area, false otherwise
+         */
+        public boolean contains(final float x, final float y)
+        {
+            return (x >= left && x < right && y >= top && y < bottom);
+        }
+        
+        /**
+         * Get the scale
+         * @return The zoom, 1 shows the whole board
+         */
+        public float getScale()
+        {
+            return this.scale;
+        }
+        
+        /**
+         * Get the x offset
+         * @return The pan added to the x-coordinate once it is scaled
+         */
+        public float getOffsetX()
+        {
+            return this.offsetX;
+        }
+        
+        /**
+         * Get the y offset
+         * @return The pan added to the y-coordinate once it is scaled
+         */
+        public float getOffsetY()
+        {
+            return this.offsetY;
+        }
+        
+        /**
+         * Get the left side of the board that is shown
+         * @return x-coordinate on the board
+         */
+        public float getVisibleLeft()
+        {
+            return (left - offsetX) / scale;
+        }
+        
+        /**
+         * Get the top of the board that is shown
+         * @return y-coordinate on the board
+         */
+        public float getVisibleTop()
+        {
+            return (top - offsetY) / scale;
+        }
+        
+        /**
+         * Get the right side of the board that is shown
+         * @return x-coordinate on the board
+         */
+        public float getVisibleRight()
+        {
+            return (right - offsetX) / scale;
+        }
+        
+        /**
+         * Get the bottom of the board that is shown
+         * @return y-coordinate on the board
+         */
+        public float getVisibleBottom()
+        {
+            return (bottom - offsetY) / scale;
+        }
+        
+        /**
+         * Clip the canvas to the area and apply the zoom and pan.<br>
+         * The canvas should be saved before and restored after.
+         * @param canvas Object to write pixels to
+         */
+        public void apply(final Canvas canvas)
+        {
+            canvas.clipRect(left, top, right, bottom);
+            canvas.translate(offsetX, offsetY);
+            canvas.scale(scale, scale);
+        }
+    }
+}
\ No newline at end of file
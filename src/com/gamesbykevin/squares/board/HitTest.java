@@ -0,0 +1,139 @@
+package com.gamesbykevin.squares.board;
+
+/**
+ * Map a touch straight to the peg under it.<br>
+ * The pegs are on a regular grid, so the nearest peg is found with arithmetic instead of checking every peg.
+ * The touch only hits the peg if it is within {@link #CONTAINS_RATIO} of the peg size from the center.<br>
+ * A viewport scale and offset can be assigned for when the board is zoomed or panned.
+ * @author GOD
+ */
+public final class HitTest
+{
+    /**
+     * The index returned when no peg was hit
+     */
+    public static final int MISS = -1;
+    
+    /**
+     * How far from the center of a peg a touch can be, as a ratio of the peg size
+     */
+    public static final float CONTAINS_RATIO = .75f;
+    
+    //store the dimensions
+    private int cols, rows;
+    
+    //the location of the first peg
+    private double originX, originY;
+    
+    //the distance between pegs
+    private double cellWidth, cellHeight;
+    
+    //how far from the center of a peg a touch can be
+    private double toleranceX, toleranceY;
+    
+    //the viewport, screen = (board * scale) + offset
+    private double scale = 1, offsetX = 0, offsetY = 0;
+    
+    /**
+     * Create a new hit test
+     */
+    public HitTest()
+    {
+        //the board is assigned when it is reset
+    }
+    
+    /**
+     * Assign the grid of pegs
+     * @param cols Column dimension of the board
+     * @param rows Row dimension of the board
+     * @param originX x-coordinate of the first peg center
+     * @param originY y-coordinate of the first peg center
+     * @param cellWidth The horizontal distance between pegs
+     * @param cellHeight The vertical distance between pegs
+     * @param pegWidth The width of a peg
+     * @param pegHeight The height of a peg
+     */
+    public void setBoard(final int cols, final int rows, final double originX, final double originY, 
+    		final double cellWidth, final double cellHeight, final double pegWidth, final double pegHeight)
+    {
+        if (cellWidth <= 0 || cellHeight <= 0)
+            throw new IllegalArgumentException("Invalid cell size - " + cellWidth + "x" + cellHeight);
+        
+        this.cols = cols;
+        this.rows = rows;
+        this.originX = originX;
+        this.originY = originY;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.toleranceX = pegWidth * CONTAINS_RATIO;
+        this.toleranceY = pegHeight * CONTAINS_RATIO;
+    }
+    
+    /**
+     * Assign the viewport
+     * @param scale The zoom of the board on the screen
+     * @param offsetX The horizontal pan of the board on the screen
+     * @param offsetY The vertical pan of the board on the screen
+     */
+    public void setViewport(final double scale, final double offsetX, final double offsetY)
+    {
+        if (scale <= 0)
+            throw new IllegalArgumentException("Invalid scale - " + scale);
+        
+        this.scale = scale;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+    }
+    
+    /**
+     * Get the peg at the touch
+     * @param x x-coordinate on the screen
+     * @param y y-coordinate on the screen
+     * @return The index of the peg (row * cols) + col, or {@link #MISS} if no peg was hit
+     */
+    public int getIndex(final float x, final float y)
+    {
+        //convert the touch from the screen to the board
+        final double boardX = (x - offsetX) / scale;
+        final double boardY = (y - offsetY) / scale;
+        
+        //the nearest peg
+        final int col = (int)Math.floor(((boardX - originX) / cellWidth) + .5);
+        final int row = (int)Math.floor(((boardY - originY) / cellHeight) + .5);
+        
+        if (col < 0 || col >= cols || row < 0 || row >= rows)
+            return MISS;
+        
+        //the peg centers are whole pixels, same as when they are rendered
+        final int centerX = (int)(originX + (col * cellWidth));
+        final int centerY = (int)(originY + (row * cellHeight));
+        
+        //make sure the touch is inside the invisible boundary of the peg
+        if (boardX < centerX - toleranceX || boardX > centerX + toleranceX)
+            return MISS;
+        if (boardY < centerY - toleranceY || boardY > centerY + toleranceY)
+            return MISS;
+        
+        return (row * cols) + col;
+    }
+    
+    /**
+     * Get the column
+     * @param index The index of the peg
+     * @return The column of the peg
+     */
+    public int getCol(final int index)
+    {
+        return index % cols;
+    }
+    
+    /**
+     * Get the row
+     * @param index The index of the peg
+     * @return The row of the peg
+     */
+    public int getRow(final int index)
+    {
+        return index / cols;
+    }
+}
\ No newline at end of file
@@ -4,7 +4,7 @@ import android.graphics.Canvas;
 import android.graphics.Paint;
 
 import com.gamesbykevin.androidframework.resources.Disposable;
-import com.gamesbykevin.squares.assets.Assets;
+import com.gamesbykevin.squares.pack.TextKey;
 
 /**
  * Each board will need to implement this
@@ -26,7 +26,16 @@ public interface IBoard extends Disposable
      * @param hint Do we reveal the solution to a row or column?
      * @throws Exception
      */
-    public void reset(final Assets.TextKey key, final int levelIndex, final boolean hint) throws Exception;
+    public void reset(final TextKey key, final int levelIndex, final boolean hint) throws Exception;
+    
+    /**
+     * Reset the board with the assigned solution
+     * @param key The value of every peg [rows][cols]
+     * @param range The number of values each peg can have
+     * @param hint Do we reveal the solution to a row or column?
+     * @throws Exception
+     */
+    public void reset(final int[][] key, final int range, final boolean hint) throws Exception;
     
     /**
      * Render the board
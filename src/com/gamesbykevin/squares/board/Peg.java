@@ -30,7 +30,7 @@ public final class Peg extends Entity
     /**
      * The ratio to check for our contains() method
      */
-    private static final float CONTAINS_RATIO = .75f;
+    private static final float CONTAINS_RATIO = HitTest.CONTAINS_RATIO;
     
     /**
      * Create new peg
@@ -0,0 +1,269 @@
+package com.gamesbykevin.squares.core;
+
+/**
+ * A packed representation of the pegs on a board.<br>
+ * Each row is stored in a single long (one bit per column), so a peg value is split into two bit-planes.<br>
+ * The low plane holds the value 1 and the high plane holds the value 2,
+ * which lets us total a 2x2 block with shifts and population counts instead of array look ups.
+ * A whole row of blocks can also be totaled at once, which is how 2 boards are compared.<br>
+ * This is not thread safe, counting a row uses storage of the board.
+ * @author GOD
+ */
+public final class BitBoard
+{
+    /**
+     * The most columns we can store in a single row
+     */
+    public static final int MAX_COLS = Long.SIZE;
+    
+    /**
+     * The mask of 2 neighboring columns
+     */
+    private static final long MASK_PAIR = 3L;
+    
+    /**
+     * The number of bits in the count of a block (0 - 8)
+     */
+    private static final int COUNT_BITS = 4;
+    
+    //the low bit-plane, one long per row
+    private long[] low;
+    
+    //the high bit-plane, one long per row (only used for range 3)
+    private long[] high;
+    
+    //store the dimensions
+    private int cols, rows;
+    
+    //the count of every block in a row, bit c of each plane belongs to the block at column c
+    private final long[] counts = new long[COUNT_BITS];
+    
+    /**
+     * Create a new bit board
+     * @param cols The number of columns
+     * @param rows The number of rows
+     */
+    public BitBoard(final int cols, final int rows)
+    {
+        //allocate the planes
+        this.low = new long[rows];
+        this.high = new long[rows];
+        
+        //assign dimensions
+        reset(cols, rows);
+    }
+    
+    /**
+     * Reset the dimensions and clear all pegs.<br>
+     * The planes are only reallocated if they are too small for the requested size.
+     * @param cols The number of columns
+     * @param rows The number of rows
+     */
+    public void reset(final int cols, final int rows)
+    {
+        if (cols < 1 || cols > MAX_COLS)
+            throw new IllegalArgumentException("Invalid number of columns - " + cols);
+        if (rows < 1)
+            throw new IllegalArgumentException("Invalid number of rows - " + rows);
+        
+        //allocate more space if needed
+        if (rows > low.length)
+        {
+            this.low = new long[rows];
+            this.high = new long[rows];
+        }
+        
+        this.cols = cols;
+        this.rows = rows;
+        
+        //remove all existing values
+        clear();
+    }
+    
+    /**
+     * Set every peg back to 0
+     */
+    public void clear()
+    {
+        for (int row = 0; row < low.length; row++)
+        {
+            low[row] = 0L;
+            high[row] = 0L;
+        }
+    }
+    
+    /**
+     * Copy the dimensions and every peg of the other board
+     * @param other The board to copy
+     */
+    public void copy(final BitBoard other)
+    {
+        reset(other.getCols(), other.getRows());
+        
+        System.arraycopy(other.low, 0, low, 0, rows);
+        System.arraycopy(other.high, 0, high, 0, rows);
+    }
+    
+    /**
+     * Get the columns
+     * @return Column dimension of the board
+     */
+    public int getCols()
+    {
+        return this.cols;
+    }
+    
+    /**
+     * Get the rows
+     * @return Row dimension of the board
+     */
+    public int getRows()
+    {
+        return this.rows;
+    }
+    
+    /**
+     * Get the value of the peg
+     * @param col Column
+     * @param row Row
+     * @return The value of the peg at the specified location (0 - 2)
+     */
+    public int get(final int col, final int row)
+    {
+        return (int)(((low[row] >>> col) & 1L) | (((high[row] >>> col) & 1L) << 1));
+    }
+    
+    /**
+     * Is the peg value not 0?
+     * @param col Column
+     * @param row Row
+     * @return true if the peg at the specified location has a value, false otherwise
+     */
+    public boolean isSet(final int col, final int row)
+    {
+        return (((low[row] | high[row]) >>> col) & 1L) != 0L;
+    }
+    
+    /**
+     * Assign the value of the peg
+     * @param col Column
+     * @param row Row
+     * @param value The value of the peg (0 - 2)
+     */
+    public void set(final int col, final int row, final int value)
+    {
+        final long bit = 1L << col;
+        
+        //clear the existing value, then apply the new one
+        low[row] = (low[row] & ~bit) | (-(long)(value & 1) & bit);
+        high[row] = (high[row] & ~bit) | (-(long)((value >> 1) & 1) & bit);
+    }
+    
+    /**
+     * Assign the peg on or off
+     * @param col Column
+     * @param row Row
+     * @param value true will set the value to 1, false will set it to 0
+     */
+    public void set(final int col, final int row, final boolean value)
+    {
+        set(col, row, value ? 1 : 0);
+    }
+    
+    /**
+     * Get the count at the specified location
+     * @param col Column
+     * @param row Row
+     * @return The total of all 4 neighboring corners
+     */
+    public int getCount(final int col, final int row)
+    {
+        //gather the 4 corners of each plane into the lowest 4 bits
+        final long l = ((low[row] >>> col) & MASK_PAIR) | (((low[row + 1] >>> col) & MASK_PAIR) << 2);
+        final long h = ((high[row] >>> col) & MASK_PAIR) | (((high[row + 1] >>> col) & MASK_PAIR) << 2);
+        
+        //the high plane is worth twice as much
+        return Long.bitCount(l) + (Long.bitCount(h) << 1);
+    }
+    
+    /**
+     * Get the count of every block in the row
+     * @param row Row of the blocks
+     * @param result The array to fill with the count of each block, 1 less than the number of columns
+     */
+    public void getCounts(final int row, final int[] result)
+    {
+        count(row);
+        
+        long bit0 = counts[0], bit1 = counts[1], bit2 = counts[2], bit3 = counts[3];
+        
+        for (int col = 0; col < cols - 1; col++)
+        {
+            result[col] = (int)((bit0 & 1L) | ((bit1 & 1L) << 1) | ((bit2 & 1L) << 2) | ((bit3 & 1L) << 3));
+            
+            //move to the next column
+            bit0 >>>= 1;
+            bit1 >>>= 1;
+            bit2 >>>= 1;
+            bit3 >>>= 1;
+        }
+    }
+    
+    /**
+     * Get the blocks in the row where the count does not match the other board.<br>
+     * If the 2 rows of pegs are the same on both boards every block matches, otherwise the counts of the whole row are compared at once.
+     * @param other The board to compare with, the same size as this one
+     * @param row Row of the blocks
+     * @return A mask with bit c set if the block at column c does not match
+     */
+    public long getMismatches(final BitBoard other, final int row)
+    {
+        final long difference = (low[row] ^ other.low[row]) | (high[row] ^ other.high[row]) |
+            (low[row + 1] ^ other.low[row + 1]) | (high[row + 1] ^ other.high[row + 1]);
+        
+        if (difference == 0L)
+            return 0L;
+        
+        count(row);
+        other.count(row);
+        
+        long mismatches = 0L;
+        
+        for (int bit = 0; bit < COUNT_BITS; bit++)
+        {
+            mismatches |= counts[bit] ^ other.counts[bit];
+        }
+        
+        //the last column is not the corner of a block
+        return mismatches & ((1L << (cols - 1)) - 1L);
+    }
+    
+    /**
+     * Count every block in the row at once.<br>
+     * The 4 corners of each plane are added with bitwise adders, then the high plane is added twice.
+     * @param row Row of the blocks
+     */
+    private void count(final int row)
+    {
+        //add the corners of the low plane, bit c of each sum is the block at column c
+        long s1 = low[row] ^ (low[row] >>> 1), c1 = low[row] & (low[row] >>> 1);
+        long s2 = low[row + 1] ^ (low[row + 1] >>> 1), c2 = low[row + 1] & (low[row + 1] >>> 1);
+        final long low0 = s1 ^ s2, low1 = (s1 & s2) ^ c1 ^ c2, low2 = c1 & c2;
+        
+        //add the corners of the high plane
+        s1 = high[row] ^ (high[row] >>> 1);
+        c1 = high[row] & (high[row] >>> 1);
+        s2 = high[row + 1] ^ (high[row + 1] >>> 1);
+        c2 = high[row + 1] & (high[row + 1] >>> 1);
+        final long high0 = s1 ^ s2, high1 = (s1 & s2) ^ c1 ^ c2, high2 = c1 & c2;
+        
+        //the total is the low count plus twice the high count
+        final long carry1 = low1 & high0;
+        final long carry2 = (low2 & high1) | (carry1 & (low2 ^ high1));
+        
+        counts[0] = low0;
+        counts[1] = low1 ^ high0;
+        counts[2] = low2 ^ high1 ^ carry1;
+        counts[3] = high2 ^ carry2;
+    }
+}
\ No newline at end of file
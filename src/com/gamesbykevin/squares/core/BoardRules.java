@@ -0,0 +1,126 @@
+package com.gamesbykevin.squares.core;
+
+/**
+ * The rules of the puzzle: the number of values a peg can have and how each 2x2 block is totaled.<br>
+ * This has no platform dependencies, so the rules can be used by solvers, generators and tools on a plain JVM.
+ * @author GOD
+ */
+public final class BoardRules
+{
+    /**
+     * The default range for game play
+     */
+    public static final int RANGE_DEFAULT = 2;
+    
+    /**
+     * The range for evil game play
+     */
+    public static final int RANGE_EVIL = 3;
+    
+    /**
+     * The fewest columns and rows a board can have
+     */
+    public static final int MIN_SIZE = 2;
+    
+    /**
+     * The most columns and rows a board can have
+     */
+    public static final int MAX_SIZE = BitBoard.MAX_COLS;
+    
+    private BoardRules()
+    {
+        //no instances
+    }
+    
+    /**
+     * Is the range supported?
+     * @param range The number of values each peg can have
+     * @return true if the range is {@link #RANGE_DEFAULT} or {@link #RANGE_EVIL}, false otherwise
+     */
+    public static boolean isValidRange(final int range)
+    {
+        return (range == RANGE_DEFAULT || range == RANGE_EVIL);
+    }
+    
+    /**
+     * Is the size supported?
+     * @param cols Column dimension of the board
+     * @param rows Row dimension of the board
+     * @return true if the columns and rows are from {@link #MIN_SIZE} to {@link #MAX_SIZE}, false otherwise
+     */
+    public static boolean isValidSize(final int cols, final int rows)
+    {
+        return (cols >= MIN_SIZE && cols <= MAX_SIZE && rows >= MIN_SIZE && rows <= MAX_SIZE);
+    }
+    
+    /**
+     * Get the dimension of the level
+     * @param line The line from the level text file, each character is the value of a peg
+     * @return The number of columns and rows of the square board
+     * @throws IllegalArgumentException If the line is not a supported square board
+     */
+    public static int getDimension(final String line)
+    {
+        final int dimension = (int)Math.round(Math.sqrt(line.length()));
+        
+        if (dimension * dimension != line.length() || !isValidSize(dimension, dimension))
+            throw new IllegalArgumentException("Level is not a supported square board - " + line.length() + " pegs");
+    	
+    	return dimension;
+    }
+    
+    /**
+     * Get the count at the specified location
+     * @param key The key containing the value of each peg [rows][cols]
+     * @param col Column
+     * @param row Row
+     * @return The total of all 4 neighboring corners
+     */
+    public static int getCount(final int[][] key, final int col, final int row)
+    {
+        return key[row][col] + key[row][col + 1] + key[row + 1][col] + key[row + 1][col + 1];
+    }
+    
+    /**
+     * Do we have a match?
+     * @param solution The packed solution key to the board
+     * @param player The packed player key with their findings
+     * @return true if the supplied player key matches the solution key
+     */
+    public static boolean hasMatch(final BitBoard solution, final BitBoard player)
+    {
+        //make sure each row of blocks matches
+        for (int row = 0; row < solution.getRows() - 1; row++)
+        {
+            //if any count is not equal, there is no match
+            if (player.getMismatches(solution, row) != 0L)
+                return false;
+        }
+        
+        //we made it here, and now found a match
+        return true;
+    }
+    
+    /**
+     * Do we have a match?
+     * @param solution The solution key to the board
+     * @param player The player key with their findings
+     * @return true if the supplied player key matches the solution key
+     */
+    public static boolean hasMatch(final int[][] solution, final int[][] player)
+    {
+        //make sure each location matches
+        for (int row = 0; row < solution.length - 1; row++)
+        {
+            for (int col = 0; col < solution[0].length - 1; col++)
+            {
+                //if the count is not equal, there is no match
+                if (getCount(player, col, row) != getCount(solution, col, row))
+                    return false;
+            }
+        }
+        
+        //we made it here, and now found a match
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,399 @@
+package com.gamesbykevin.squares.core;
+
+import java.util.Random;
+
+/**
+ * The state of a board being played: the solution, the pegs the player has filled and flagged,
+ * and the rules of how a tap changes a peg.<br>
+ * The number of blocks that don't match the solution is kept up to date as each peg changes.
+ * This has no platform dependencies, the Android board only draws it.
+ * @author GOD
+ */
+public final class BoardState
+{
+    /**
+     * The board size the keys are created with, the storage is reused and only grows when a larger board is reset
+     */
+    private static final int DEFAULT_SIZE = 6;
+    
+    //the key to the board
+    private final BitBoard solution;
+    
+    //the key that the player interacts with
+    private final BitBoard player;
+    
+    //is the specified peg flagged
+    private final BitBoard flagged;
+    
+    //the count of each block, kept in arrays so drawing the board each frame is a look up [rows - 1][cols - 1]
+    private int[][] solutionCounts, playerCounts;
+    
+    //store the dimensions
+    private int cols, rows;
+    
+    //the number of values each peg can have
+    private int range;
+    
+    //does a tap fill the peg, otherwise it flags the peg
+    private boolean fill = true;
+    
+    //the number of blocks where the player count does not match the solution
+    private int mismatches;
+    
+    /**
+     * Create a new board state
+     */
+    public BoardState()
+    {
+        this.solution = new BitBoard(DEFAULT_SIZE, DEFAULT_SIZE);
+        this.player = new BitBoard(DEFAULT_SIZE, DEFAULT_SIZE);
+        this.flagged = new BitBoard(DEFAULT_SIZE, DEFAULT_SIZE);
+        this.solutionCounts = new int[DEFAULT_SIZE - 1][DEFAULT_SIZE - 1];
+        this.playerCounts = new int[DEFAULT_SIZE - 1][DEFAULT_SIZE - 1];
+    }
+    
+    /**
+     * Reset the board to a level that has already been decoded
+     * @param key The value of every peg
+     * @param range The number of values each peg can have
+     */
+    public void reset(final BitBoard key, final int range)
+    {
+        resize(key.getCols(), key.getRows());
+        
+        //assign the key to the solution
+        solution.copy(key);
+        
+        setup(range);
+    }
+    
+    /**
+     * Reset the board with a generated level
+     * @param key The value of every peg [rows][cols]
+     * @param range The number of values each peg can have
+     */
+    public void reset(final int[][] key, final int range)
+    {
+        resize(key[0].length, key.length);
+        
+        //assign the key to the solution
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                solution.set(col, row, key[row][col]);
+            }
+        }
+        
+        setup(range);
+    }
+    
+    /**
+     * Assign the dimensions and reset all pegs to 0
+     * @param cols Column dimension of the board
+     * @param rows Row dimension of the board
+     */
+    private void resize(final int cols, final int rows)
+    {
+        if (!BoardRules.isValidSize(cols, rows))
+            throw new IllegalArgumentException("Invalid board size - " + cols + "x" + rows);
+        
+        this.cols = cols;
+        this.rows = rows;
+        
+        solution.reset(cols, rows);
+        player.reset(cols, rows);
+        flagged.reset(cols, rows);
+        
+        //allocate more space for the counts if needed
+        if (rows - 1 > solutionCounts.length || cols - 1 > solutionCounts[0].length)
+        {
+            this.solutionCounts = new int[Math.max(rows - 1, solutionCounts.length)][Math.max(cols - 1, solutionCounts[0].length)];
+            this.playerCounts = new int[solutionCounts.length][solutionCounts[0].length];
+        }
+    }
+    
+    /**
+     * Finish resetting the board once the solution has been assigned
+     * @param range The number of values each peg can have
+     */
+    private void setup(final int range)
+    {
+        if (!BoardRules.isValidRange(range))
+            throw new IllegalArgumentException("Invalid range assigned - " + range);
+        
+        this.range = range;
+        
+        //default to filling the pegs
+        this.fill = true;
+        
+        //the solution doesn't change until the next reset
+        for (int row = 0; row < rows - 1; row++)
+        {
+            solution.getCounts(row, solutionCounts[row]);
+        }
+        
+        countMismatches();
+    }
+    
+    /**
+     * Count every block that does not match the solution, and update the player counts
+     */
+    private void countMismatches()
+    {
+        this.mismatches = 0;
+        
+        for (int row = 0; row < rows - 1; row++)
+        {
+            player.getCounts(row, playerCounts[row]);
+            
+            //compare the whole row of blocks at once
+            this.mismatches += Long.bitCount(player.getMismatches(solution, row));
+        }
+    }
+    
+    /**
+     * Reveal the solution to a random row or column as a hint.<br>
+     * Pegs revealed as 0 are flagged.
+     * @param random Object used to make random decisions
+     */
+    public void reveal(final Random random)
+    {
+        if (random.nextBoolean())
+        {
+            //reveal every column in the row
+            final int row = random.nextInt(rows);
+            
+            for (int col = 0; col < cols; col++)
+            {
+                reveal(col, row);
+            }
+        }
+        else
+        {
+            //reveal every row in the column
+            final int col = random.nextInt(cols);
+            
+            for (int row = 0; row < rows; row++)
+            {
+                reveal(col, row);
+            }
+        }
+        
+        countMismatches();
+    }
+    
+    /**
+     * Reveal the solution of the peg
+     * @param col Column
+     * @param row Row
+     */
+    private void reveal(final int col, final int row)
+    {
+        player.set(col, row, solution.get(col, row));
+        
+        //if 0 lets flag this one
+        if (!player.isSet(col, row))
+            flagged.set(col, row, true);
+    }
+    
+    /**
+     * Apply a tap to the peg.<br>
+     * When filling, the peg value goes to the next value in the range. When flagging, the flag is toggled and the value goes back to 0.
+     * @param col Column of the peg
+     * @param row Row of the peg
+     * @return true if the peg changed, false if it could not be changed
+     */
+    public boolean apply(final int col, final int row)
+    {
+        //if we want to fill, we can't continue if this location is flagged
+        if (fill && flagged.isSet(col, row))
+            return false;
+        
+        //remove the neighboring blocks from the mismatch count before the peg changes
+        this.mismatches -= getMismatches(col, row);
+        
+        if (fill)
+        {
+            //increase the count, if out of range reset
+            final int count = player.get(col, row) + 1;
+            player.set(col, row, (count >= range) ? 0 : count);
+        }
+        else
+        {
+            //if flagged undo and vice versa, and reset back to 0
+            flagged.set(col, row, !flagged.isSet(col, row));
+            player.set(col, row, 0);
+        }
+        
+        //add the neighboring blocks back now that the peg has changed
+        updateCounts(col, row);
+        this.mismatches += getMismatches(col, row);
+        
+        return true;
+    }
+    
+    /**
+     * Count the mismatched blocks that share the specified peg
+     * @param col Column of the peg
+     * @param row Row of the peg
+     * @return The number of the (up to 4) neighboring blocks that do not match the solution
+     */
+    private int getMismatches(final int col, final int row)
+    {
+        int count = 0;
+        
+        //each peg is a corner of up to 4 blocks surrounding it
+        for (int blockRow = Math.max(row - 1, 0); blockRow <= Math.min(row, rows - 2); blockRow++)
+        {
+            for (int blockCol = Math.max(col - 1, 0); blockCol <= Math.min(col, cols - 2); blockCol++)
+            {
+                if (playerCounts[blockRow][blockCol] != solutionCounts[blockRow][blockCol])
+                    count++;
+            }
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Update the player count of the blocks that share the specified peg
+     * @param col Column of the peg
+     * @param row Row of the peg
+     */
+    private void updateCounts(final int col, final int row)
+    {
+        for (int blockRow = Math.max(row - 1, 0); blockRow <= Math.min(row, rows - 2); blockRow++)
+        {
+            for (int blockCol = Math.max(col - 1, 0); blockCol <= Math.min(col, cols - 2); blockCol++)
+            {
+                playerCounts[blockRow][blockCol] = player.getCount(blockCol, blockRow);
+            }
+        }
+    }
+    
+    /**
+     * Switch between filling and flagging pegs
+     */
+    public void toggleFill()
+    {
+        this.fill = !this.fill;
+    }
+    
+    /**
+     * Does a tap fill the peg?
+     * @return true if a tap fills the peg, false if it flags the peg
+     */
+    public boolean isFill()
+    {
+        return this.fill;
+    }
+    
+    /**
+     * Get the columns
+     * @return Column dimension of the board
+     */
+    public int getCols()
+    {
+        return this.cols;
+    }
+    
+    /**
+     * Get the rows
+     * @return Row dimension of the board
+     */
+    public int getRows()
+    {
+        return this.rows;
+    }
+    
+    /**
+     * Get the range
+     * @return The number of values each peg can have
+     */
+    public int getRange()
+    {
+        return this.range;
+    }
+    
+    /**
+     * Get the number of mismatched blocks
+     * @return The number of blocks where the player count is not equal to the solution count
+     */
+    public int getMismatches()
+    {
+        return this.mismatches;
+    }
+    
+    /**
+     * Do we have a match?<br>
+     * The mismatch count is kept up to date as each peg changes, so this check is constant time.
+     * @return true if every block count matches the solution, false otherwise
+     */
+    public boolean hasMatch()
+    {
+        return (getMismatches() == 0);
+    }
+    
+    /**
+     * Get the peg value
+     * @param col Column
+     * @param row Row
+     * @return The value the player has given the peg
+     */
+    public int getValue(final int col, final int row)
+    {
+        return player.get(col, row);
+    }
+    
+    /**
+     * Is the peg flagged?
+     * @param col Column
+     * @param row Row
+     * @return true if the player has flagged the peg, false otherwise
+     */
+    public boolean isFlagged(final int col, final int row)
+    {
+        return flagged.isSet(col, row);
+    }
+    
+    /**
+     * Get the solution count of the block
+     * @param col Column of the block
+     * @param row Row of the block
+     * @return The total of the 4 corners of the solution
+     */
+    public int getSolutionCount(final int col, final int row)
+    {
+        return solutionCounts[row][col];
+    }
+    
+    /**
+     * Get the player count of the block
+     * @param col Column of the block
+     * @param row Row of the block
+     * @return The total of the 4 corners the player has filled
+     */
+    public int getPlayerCount(final int col, final int row)
+    {
+        return playerCounts[row][col];
+    }
+    
+    /**
+     * Get the solution
+     * @return The key to solve the board, this should not be modified
+     */
+    public BitBoard getSolution()
+    {
+        return this.solution;
+    }
+    
+    /**
+     * Get the player key
+     * @return The key of player selections, this should not be modified
+     */
+    public BitBoard getPlayer()
+    {
+        return this.player;
+    }
+}
\ No newline at end of file
@@ -1,4 +1,4 @@
-package com.gamesbykevin.squares.scorecard;
+package com.gamesbykevin.squares.core;
 
 /**
  * The score for a level
@@ -0,0 +1,118 @@
+package com.gamesbykevin.squares.core;
+
+import java.util.BitSet;
+
+/**
+ * The best time of each level and difficulty.<br>
+ * A score is only replaced by a lower time. This has no platform dependencies, saving the scores is done by the score card.
+ * @author GOD
+ */
+public final class ScoreTable
+{
+    /**
+     * No levels completed, for a difficulty without any scores
+     */
+    private static final BitSet NONE_COMPLETED = new BitSet();
+    
+    //the scores of each difficulty, indexed by level [difficulty][level]
+    private Score[][] scores = new Score[0][];
+    
+    //the levels with a score for each difficulty
+    private BitSet[] completed = new BitSet[0];
+    
+    /**
+     * Get the score object of the specified level and difficulty
+     * @param level The level index
+     * @param difficulty The level difficulty
+     * @return The score object of the specified level and difficulty, if not found null is returned
+     */
+    public Score getScore(final int level, final int difficulty)
+    {
+    	//the scores are indexed by difficulty and level
+    	if (difficulty < 0 || difficulty >= scores.length || level < 0 || level >= scores[difficulty].length)
+    		return null;
+    	
+    	return scores[difficulty][level];
+    }
+    
+    /**
+     * Get the completed levels
+     * @param difficulty The level difficulty
+     * @return The level indexes that have a score for the specified difficulty, this should not be modified
+     */
+    public BitSet getCompleted(final int difficulty)
+    {
+    	if (difficulty < 0 || difficulty >= completed.length)
+    		return NONE_COMPLETED;
+    	
+    	return completed[difficulty];
+    }
+    
+    /**
+     * Get the difficulties
+     * @return The number of difficulties that can have a score, 1 more than the highest difficulty added
+     */
+    public int getDifficulties()
+    {
+    	return scores.length;
+    }
+    
+    /**
+     * Add the score, or update the time if it is less than the existing
+     * @param level The specified level
+     * @param difficulty The difficulty of the level
+     * @param time The time duration
+     * @return true if the score was added or updated, false otherwise
+     */
+    public boolean add(final int level, final int difficulty, final long time)
+    {
+    	//a score can't have a negative index
+    	if (level < 0 || difficulty < 0)
+    		return false;
+    	
+    	//make room for the difficulty
+    	if (difficulty >= scores.length)
+    	{
+    		final Score[][] tmpScores = new Score[difficulty + 1][];
+    		final BitSet[] tmpCompleted = new BitSet[difficulty + 1];
+    		
+    		for (int index = 0; index < tmpScores.length; index++)
+    		{
+    			tmpScores[index] = (index < scores.length) ? scores[index] : new Score[0];
+    			tmpCompleted[index] = (index < completed.length) ? completed[index] : new BitSet();
+    		}
+    		
+    		this.scores = tmpScores;
+    		this.completed = tmpCompleted;
+    	}
+    	
+    	//make room for the level
+    	if (level >= scores[difficulty].length)
+    	{
+    		final Score[] tmp = new Score[Math.max(level + 1, scores[difficulty].length * 2)];
+    		System.arraycopy(scores[difficulty], 0, tmp, 0, scores[difficulty].length);
+    		scores[difficulty] = tmp;
+    	}
+    	
+    	//our score object
+    	final Score score = scores[difficulty][level];
+    	
+    	if (score == null)
+    	{
+    		//score does not exist, so add it
+    		scores[difficulty][level] = new Score(level, difficulty, time);
+    		completed[difficulty].set(level);
+    	}
+    	else
+    	{
+    		//if the time is not less, don't update
+    		if (time >= score.getTime())
+    			return false;
+    		
+    		score.setTime(time);
+    	}
+    	
+    	//score was updated
+    	return true;
+    }
+}
\ No newline at end of file
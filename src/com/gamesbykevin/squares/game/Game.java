@@ -4,23 +4,29 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.os.SystemClock;
 import android.os.Vibrator;
 import android.view.MotionEvent;
 
+import com.gamesbykevin.androidframework.anim.Animation;
 import com.gamesbykevin.androidframework.awt.Button;
 import com.gamesbykevin.androidframework.level.Select;
 import com.gamesbykevin.androidframework.resources.Audio;
 import com.gamesbykevin.androidframework.resources.Images;
-import com.gamesbykevin.androidframework.text.TimeFormat;
 import com.gamesbykevin.squares.assets.Assets;
 import com.gamesbykevin.squares.board.Board;
 import com.gamesbykevin.squares.board.BoardHelper;
+import com.gamesbykevin.squares.core.Score;
 import com.gamesbykevin.squares.game.controller.Controller;
+import com.gamesbykevin.squares.generator.LevelQueue;
+import com.gamesbykevin.squares.pack.TextKey;
 import com.gamesbykevin.squares.panel.GamePanel;
-import com.gamesbykevin.squares.scorecard.Score;
 import com.gamesbykevin.squares.scorecard.ScoreCard;
 import com.gamesbykevin.squares.screen.MainScreen;
 import com.gamesbykevin.squares.screen.OptionsScreen;
+import com.gamesbykevin.squares.text.HudLabel;
+
+import java.util.BitSet;
 
 /**
  * The main game logic will happen here
@@ -43,7 +49,8 @@ public final class Game implements IGame
     public enum Mode
     {
         Default("Casual"),
-        Timed("Timed");
+        Timed("Timed"),
+        Endless("Endless");
         
         private final String desc;
         
@@ -94,11 +101,20 @@ public final class Game implements IGame
     //store difficulty setting
     private Difficulty difficulty;
     
-    //are we updating the board?
-    private boolean update = false;
+    //the generated levels for endless mode
+    private LevelQueue levelQueue;
+    
+    //the current generated level for endless mode, cleared by the ui thread when the player moves on
+    private volatile int[][] endlessKey;
+    
+    //the number of generated levels played
+    private int endlessLevel = 0;
     
-    //the coordinates at which the update are made
-    private float updateX, updateY;
+    //the taps waiting to update the board
+    private final TouchQueue touches = new TouchQueue();
+    
+    //taps made before this time are from the previous board
+    private volatile long resetTime = 0;
     
     /**
      * For timed mode, the number of blocks will be a factor to determine the time remaining
@@ -122,20 +138,28 @@ public final class Game implements IGame
     private static final int LOCATION_LEVEL_X = 100;
     private static final int LOCATION_LEVEL_Y = LOCATION_DIFFICULTY_Y + 40;
     
-    //paint object to draw text
-    private Paint paint;
+    /**
+     * The message displayed while the next generated level is not ready
+     */
+    private static final String LOADING_MESSAGE = "Loading...";
+    
+    //where the loading message is displayed
+    private static final int LOCATION_LOADING_X = 100;
+    private static final int LOCATION_LOADING_Y = GamePanel.HEIGHT / 2;
     
-    //track the time (milliseconds)
-    private long totalTime = 0L;
+    /**
+     * How often we check if the next generated level is ready (milliseconds)
+     */
+    private static final long LOADING_DELAY = 50L;
     
-    //track the previous time (milliseconds)
-    private long previousTime = 0L;
+    //paint object to draw text
+    private Paint paint;
     
-    //the time if we are counting down, used for display purposes
-    private long countdownTime = 0L;
+    //the text displayed on the hud
+    private final HudLabel hudTime, hudDifficulty, hudLevel;
     
-    //do we stop the timer
-    private boolean stopTimer = false;
+    //track the time played, and the time limit in timed mode
+    private final GameTimer timer = new GameTimer();
     
     /**
      * The length to vibrate the phone when you beat a level
@@ -148,13 +172,18 @@ public final class Game implements IGame
         this.screen = screen;
         
         //create score card
-        this.scoreCard = new ScoreCard(this, screen.getPanel().getActivity());
+        this.scoreCard = new ScoreCard(this, screen.getPanel().getActivity(), screen.getPanel().getPersistence());
         
         //create new paint object
         this.paint = new Paint();
         this.paint.setTextSize(24f);
         this.paint.setColor(Color.WHITE);
         
+        //create the hud text
+        this.hudTime = new HudLabel("Time: ", LOCATION_TIMER_X, LOCATION_TIMER_Y);
+        this.hudDifficulty = new HudLabel("Difficulty: ", LOCATION_DIFFICULTY_X, LOCATION_DIFFICULTY_Y);
+        this.hudLevel = new HudLabel("Level: ", LOCATION_LEVEL_X, LOCATION_LEVEL_Y);
+        
         //create new controller
         this.controller = new Controller(this);
         
@@ -177,7 +206,7 @@ public final class Game implements IGame
      * Get the board
      * @return The game board where play happens
      */
-    private Board getBoard()
+    public Board getBoard()
     {
         return this.board;
     }
@@ -191,6 +220,15 @@ public final class Game implements IGame
         return this.screen;
     }
     
+    /**
+     * Get the game mode
+     * @return The mode of the current game
+     */
+    public Mode getMode()
+    {
+        return this.mode;
+    }
+    
     /**
      * Get the score card
      * @return Our list of levels and the high score for this player
@@ -205,7 +243,7 @@ public final class Game implements IGame
      */
     public void stopTimer()
     {
-        this.stopTimer = true;
+        this.timer.stop();
     }
     
     /**
@@ -223,44 +261,111 @@ public final class Game implements IGame
         //reset level select info
         getLevelSelect().reset();
         
-        //determine how many levels there are
+        //determine how many levels there are in the level pack
         switch (difficulty)
         {
 		    case Easy:
-		    	getLevelSelect().setTotal(301);
+		    	getLevelSelect().setTotal(Assets.getLevelPack(TextKey.Easy).getCount());
 		    	break;
 		    	
 		    case Normal:
-		    	getLevelSelect().setTotal(299);
+		    	getLevelSelect().setTotal(Assets.getLevelPack(TextKey.Normal).getCount());
 		    	break;
 		    	
 		    case Hard:
-		    	getLevelSelect().setTotal(225);
+		    	getLevelSelect().setTotal(Assets.getLevelPack(TextKey.Hard).getCount());
 		    	break;
 		    	
 		    case Expert:
-		    	getLevelSelect().setTotal(100);
+		    	getLevelSelect().setTotal(Assets.getLevelPack(TextKey.Expert).getCount());
 		    	break;
 		    	
 		    case Twisted:
-		    	getLevelSelect().setTotal(100);
+		    	getLevelSelect().setTotal(Assets.getLevelPack(TextKey.Twisted).getCount());
 		    	break;
 		    	
 			default:
 				throw new Exception("Difficulty not setup here:" + difficulty.toString());
         }
         
+        //the levels with a score for the selected difficulty
+        final BitSet completed = getScorecard().getCompleted(screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_DIFFICULTY));
+        
         //load the saved data
         for (int levelIndex = 0; levelIndex < getLevelSelect().getTotal(); levelIndex++)
         {
-        	//get the score for the specified level and difficulty
-        	Score score = getScorecard().getScore(levelIndex, screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_DIFFICULTY));
+        	//mark completed if the score exists
+        	getLevelSelect().setCompleted(levelIndex, completed.get(levelIndex));
+        }
+        
+        //remove any levels generated for the previous settings
+        if (levelQueue != null)
+        {
+        	levelQueue.dispose();
+        	levelQueue = null;
+        }
+        
+        //no generated level until the queue has one ready
+        this.endlessKey = null;
+        
+        //endless mode doesn't use level select, so start generating, the first level is loaded by update once it is ready
+        if (mode == Mode.Endless)
+        {
+        	switch (difficulty)
+        	{
+	        	case Easy:
+	        		levelQueue = new LevelQueue(4, 4, Board.DIFFICULTY_RANGE_DEFAULT);
+	        		break;
+	        		
+	        	case Normal:
+	        	case Hard:
+	        	case Expert:
+	        		levelQueue = new LevelQueue(6, 6, Board.DIFFICULTY_RANGE_DEFAULT);
+	        		break;
+	        		
+	        	case Twisted:
+	        		levelQueue = new LevelQueue(6, 6, Board.DIFFICULTY_RANGE_EVIL);
+	        		break;
+	        		
+				default:
+					throw new Exception("Difficulty not setup here:" + difficulty.toString());
+        	}
         	
-        	//mark completed if the score object exists
-        	getLevelSelect().setCompleted(levelIndex, (score != null));
+        	this.endlessLevel = 0;
         }
     }
     
+    /**
+     * Move to the next level with the same settings.<br>
+     * In endless mode the next level is loaded by {@link #update()} once a worker has generated it,
+     * until then the loading message is displayed, so the caller never waits on the generator.
+     * @throws Exception 
+     */
+    public void next() throws Exception
+    {
+    	if (mode == Mode.Endless)
+    	{
+    		//no generated level until the queue has one ready
+    		this.endlessKey = null;
+    		return;
+    	}
+    	
+    	//move to the next level
+    	getLevelSelect().setLevelIndex(getLevelSelect().getLevelIndex() + 1);
+    	
+    	//reset with the same settings
+    	reset();
+    }
+    
+    /**
+     * Do we have a level to play?
+     * @return true if a level has been selected or the level is generated, false otherwise
+     */
+    public boolean hasSelection()
+    {
+    	return (mode == Mode.Endless) ? (endlessKey != null) : getLevelSelect().hasSelection();
+    }
+    
     /**
      * Restart game with assigned settings
      * @throws Exception 
@@ -273,63 +378,75 @@ public final class Game implements IGame
             this.board = new Board();
         
         //reset the board
-        switch (difficulty)
+        if (mode == Mode.Endless)
         {
-		    case Easy:
-		    	getBoard().reset(
-		    		Assets.TextKey.Easy, 
-		    		getLevelSelect().getLevelIndex(), 
-		    		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
-		    	);
-		    	break;
+        	getBoard().reset(
+        		this.endlessKey, 
+        		levelQueue.getRange(), 
+        		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
+        	);
+        }
+        else
+        {
+            switch (difficulty)
+            {
+			    case Easy:
+			    	getBoard().reset(
+			    		TextKey.Easy, 
+			    		getLevelSelect().getLevelIndex(), 
+			    		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
+			    	);
+			    	break;
 		    	
-		    case Normal:
-		    	getBoard().reset(
-		    		Assets.TextKey.Normal, 
-		    		getLevelSelect().getLevelIndex(), 
-		    		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
-		    	);
-		    	break;
+			    case Normal:
+			    	getBoard().reset(
+			    		TextKey.Normal, 
+			    		getLevelSelect().getLevelIndex(), 
+			    		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
+			    	);
+			    	break;
 		    	
-		    case Hard:
-		    	getBoard().reset(
-		    		Assets.TextKey.Hard, 
-		    		getLevelSelect().getLevelIndex(), 
-		    		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
-		    	);
-		    	break;
+			    case Hard:
+			    	getBoard().reset(
+			    		TextKey.Hard, 
+			    		getLevelSelect().getLevelIndex(), 
+			    		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
+			    	);
+			    	break;
 		    	
-		    case Expert:
-		    	getBoard().reset(
-		    		Assets.TextKey.Expert, 
-		    		getLevelSelect().getLevelIndex(), 
-		    		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
-		    	);
-		    	break;
+			    case Expert:
+			    	getBoard().reset(
+			    		TextKey.Expert, 
+			    		getLevelSelect().getLevelIndex(), 
+			    		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
+			    	);
+			    	break;
 		    	
-		    case Twisted:
-		    	getBoard().reset(
-		    		Assets.TextKey.Twisted, 
-		    		getLevelSelect().getLevelIndex(), 
-		    		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
-		    	);
-		    	break;
+			    case Twisted:
+			    	getBoard().reset(
+			    		TextKey.Twisted, 
+			    		getLevelSelect().getLevelIndex(), 
+			    		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_HINT) == 1
+			    	);
+			    	break;
 		    	
-			default:
-				throw new Exception("Difficulty not setup here:" + difficulty.toString());
+				default:
+					throw new Exception("Difficulty not setup here:" + difficulty.toString());
+            }
         }
         
-        //flag update false
-        this.update = false;
+        //ignore any taps left from the previous board
+        this.resetTime = SystemClock.uptimeMillis();
         
-        //reset the timer
-        this.totalTime = 0;
+        //the time limit, only used in timed mode
+        long countdownTime = 0L;
         
         //setup the game mode
         switch (mode)
         {
         	//no need to do anything here
             case Default:
+            case Endless:
                 break;
                 
             //the amount of time remaining will depend on the # of blocks
@@ -342,16 +459,16 @@ public final class Game implements IGame
             	//if score exists, the count down will be the best time
             	if (score != null)
             	{
-            		this.countdownTime = score.getTime();
+            		countdownTime = score.getTime();
             	}
             	else
             	{
             		//calculate the time limit
-            		this.countdownTime = TIMED_BLOCK_DURATION * ((getBoard().getCols() - 1) * (getBoard().getRows() - 1));
+            		countdownTime = TIMED_BLOCK_DURATION * ((getBoard().getCols() - 1) * (getBoard().getRows() - 1));
             		
             		//the hardest difficulty we multiply the timer
                 	if (difficulty == Difficulty.Twisted)
-                		this.countdownTime *= TWISTED_DIFFICULTY_MULTIPLIER;
+                		countdownTime *= TWISTED_DIFFICULTY_MULTIPLIER;
             	}
                 break;
                 
@@ -359,7 +476,8 @@ public final class Game implements IGame
                 throw new Exception("Mode not setup here - " + mode.toString());
         }
         
-        stopTimer();
+        //reset the timer, it starts with the next update
+        this.timer.reset(countdownTime);
     }
     
     /**
@@ -386,7 +504,7 @@ public final class Game implements IGame
      */
     public long getTime()
     {
-    	return this.totalTime;
+    	return this.timer.getTime();
     }
     
     /**
@@ -397,15 +515,11 @@ public final class Game implements IGame
      */
     public void update(final MotionEvent event, final float x, final float y)
     {
-    	//if we are updating the board, we can't continue
-    	if (update)
-    		return;
-    	
     	//if we don't have a selection
-    	if (!getLevelSelect().hasSelection())
+    	if (!hasSelection())
     	{
-    		//if action up, check the location
-    		if (event.getAction() == MotionEvent.ACTION_UP)
+    		//if action up, check the location, there is nothing to select while the first generated level loads
+    		if (event.getAction() == MotionEvent.ACTION_UP && mode != Mode.Endless)
     			getLevelSelect().setCheck((int)x, (int)y);
     		
     		//don't continue
@@ -415,13 +529,21 @@ public final class Game implements IGame
         //only update game if no controller buttons were clicked
         if (!getController().update(event, x, y))
         {
-            //if the board exists and the action is up, flag update true and store coordinates
-            if (getBoard() != null && event.getAction() == MotionEvent.ACTION_UP)
-            {
-            	this.update = true;
-            	this.updateX = x;
-            	this.updateY = y;
-            }
+            //nothing to pan, zoom or tap without a board
+            if (getBoard() == null)
+            	return;
+            
+            //the fingers are in the same coordinates as (x, y)
+            final float scaleX = (float)GamePanel.WIDTH / screen.getPanel().getWidth();
+            final float scaleY = (float)GamePanel.HEIGHT / screen.getPanel().getHeight();
+            
+            //a pan or zoom is not a tap
+            if (getBoard().getCamera().update(event, scaleX, scaleY))
+            	return;
+            
+            //if the action is up, queue the tap for the game thread
+            if (event.getAction() == MotionEvent.ACTION_UP)
+            	touches.offer(x, y, event.getEventTime());
         }
     }
     
@@ -431,50 +553,84 @@ public final class Game implements IGame
      */
     public void update() throws Exception
     {
-    	if (!getLevelSelect().hasSelection())
+    	if (!hasSelection())
     	{
+    		//wait for the workers to generate the next level, instead of generating it on this thread
+    		if (mode == Mode.Endless)
+    		{
+    			if (levelQueue.isReady())
+    			{
+    				//get the next generated level, the queue has only 1 reader so this does not wait
+    				this.endlessKey = levelQueue.poll();
+    				this.endlessLevel++;
+    				
+    				//reset with the same settings
+    				reset();
+    				screen.getPanel().requestRender();
+    			}
+    			else
+    			{
+    				screen.getPanel().requestRender(LOADING_DELAY);
+    			}
+    			
+    			return;
+    		}
+    		
     		//update the object
     		getLevelSelect().update();
     		
     		//if we have a selection now, reset the board
     		if (getLevelSelect().hasSelection())
+    		{
     			reset();
+    			
+    			//update again right away so the timer is scheduled for the new board
+    			screen.getPanel().requestRender();
+    		}
     		
     		//no need to continue
     		return;
     	}
         
-        //if we are to update the board
-        if (update)
+        //apply every tap made since the last update, in order
+        while (!touches.isEmpty())
         {
+        	final float x = touches.getX();
+        	final float y = touches.getY();
+        	final long time = touches.getTime();
+        	
+        	//we are complete with this tap
+        	touches.remove();
+        	
+        	//this tap was for the previous board
+        	if (time < resetTime)
+        		continue;
+        	
             //do we have a match before updating
             final boolean match = BoardHelper.hasMatch(getBoard());
             
             //update board
-            getBoard().update(updateX, updateY);
+            getBoard().update(x, y);
             
-        	//we are complete with our update
-        	update = false;
+            //measure how long the tap waited to be applied
+            screen.getPanel().getMetrics().recordInput((SystemClock.uptimeMillis() - time) * Animation.NANO_SECONDS_PER_MILLISECOND);
         	
             //if we now have a match
             if (!match && BoardHelper.hasMatch(getBoard()))
             {
-                //update the score card
-                getScorecard().update(
-            		getLevelSelect().getLevelIndex(),
-            		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_DIFFICULTY),
-                	getTime()
-                );
-                
-                //load the saved data
-                for (int levelIndex = 0; levelIndex < getLevelSelect().getTotal(); levelIndex++)
-                {
-                	//get the score for the specified level and difficulty
-                	Score score = getScorecard().getScore(levelIndex, screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_DIFFICULTY)); 
-                	
-                	//mark completed if the score object exists
-                	getLevelSelect().setCompleted(levelIndex, (score != null));
-                }
+            	//generated levels are not part of the score card
+            	if (mode != Mode.Endless)
+            	{
+	                //update the score card
+	                getScorecard().update(
+	            		getLevelSelect().getLevelIndex(),
+	            		screen.getScreenOptions().getIndex(OptionsScreen.INDEX_BUTTON_DIFFICULTY),
+	                	getTime()
+	                );
+	                
+	                //only the current level can have changed
+	                getLevelSelect().setCompleted(getLevelSelect().getLevelIndex(), true);
+            	}
                 
             	
                 //set game over state
@@ -501,34 +657,25 @@ public final class Game implements IGame
             }
         }
     	
-        //if we stopped the timer, record the previous time
-        if (this.stopTimer)
-        {
-            this.stopTimer = false;
-            this.previousTime = System.currentTimeMillis();
-        }
-        
-        //get the current time
-        final long current = System.currentTimeMillis();
-        
-        //add the difference to the total time
-        this.totalTime += (current - previousTime);
+        //add the time since the last update
+        this.timer.update(System.currentTimeMillis());
         
         //the timer will behave different depending on the mode
         switch (mode)
         {
         	//don't need to do anything here
             case Default:
+            case Endless:
                 break;
                 
             //check if time has run out
             case Timed:
             	
                 //don't let the time go below 0
-                if (this.countdownTime - this.totalTime < 0)
+                if (this.timer.getRemaining() < 0)
                 {
                     //set time to 0
-                    this.totalTime = this.countdownTime;
+                    this.timer.expire();
                     
                     //set the state
                     screen.setState(MainScreen.State.GameOver);
@@ -545,8 +692,8 @@ public final class Game implements IGame
                 throw new Exception("Mode not setup here - " + mode.toString());
         }
         
-        //update the previous
-        this.previousTime = current;
+        //the timer is displayed in whole seconds, wake up again when the displayed time changes
+        screen.getPanel().requestRender(this.timer.getDelay(mode == Mode.Timed));
     }
     
     @Override
@@ -570,6 +717,21 @@ public final class Game implements IGame
         	levelSelect = null;
         }
         
+        if (levelQueue != null)
+        {
+        	levelQueue.dispose();
+        	levelQueue = null;
+        }
+        
+        //finish saving the scores
+        if (scoreCard != null)
+        {
+        	scoreCard.dispose();
+        	scoreCard = null;
+        }
+        
+        endlessKey = null;
+        
         if (paint != null)
             paint = null;
     }
@@ -581,8 +743,15 @@ public final class Game implements IGame
      */
     public void render(final Canvas canvas) throws Exception
     {
-    	if (!getLevelSelect().hasSelection())
+    	if (!hasSelection())
     	{
+    		//the first generated level is not ready yet
+    		if (mode == Mode.Endless)
+    		{
+    			canvas.drawText(LOADING_MESSAGE, LOCATION_LOADING_X, LOCATION_LOADING_Y, paint);
+    			return;
+    		}
+    		
     		//render level select screen
     		getLevelSelect().render(canvas, this.paint);
     		
@@ -597,39 +766,16 @@ public final class Game implements IGame
         if (getBoard() != null)
             getBoard().render(canvas, paint);
         
-        //draw timer accordingly
-        if (mode == Mode.Timed)
-        {
-	        canvas.drawText(
-	        	"Time: " + TimeFormat.getDescription(TimeFormat.FORMAT_1, countdownTime - totalTime), 
-		        LOCATION_TIMER_X, 
-		        LOCATION_TIMER_Y, 
-		        paint
-	        );
-        }
-        else
-        {
-	        canvas.drawText(
-	        	"Time: " + TimeFormat.getDescription(TimeFormat.FORMAT_1, totalTime), 
-	        	LOCATION_TIMER_X, 
-	        	LOCATION_TIMER_Y, 
-	        	paint
-	        );
-        }
+        //draw timer accordingly, the text is only formatted again when the value changes
+        hudTime.setTime((mode == Mode.Timed) ? timer.getRemaining() : timer.getTime());
+        hudTime.render(canvas, paint);
         
         //draw difficulty
-        canvas.drawText(
-        	"Difficulty: " + this.difficulty.toString(), 
-        	LOCATION_DIFFICULTY_X, 
-        	LOCATION_DIFFICULTY_Y, 
-        	paint
-        );
+        hudDifficulty.setDescription(this.difficulty.toString());
+        hudDifficulty.render(canvas, paint);
         
         //draw level #
-        canvas.drawText(
-        	"Level: " + (this.getLevelSelect().getLevelIndex() + 1), 
-        	LOCATION_LEVEL_X, 
-        	LOCATION_LEVEL_Y, 
-        	paint);
+        hudLevel.setNumber((mode == Mode.Endless) ? endlessLevel : this.getLevelSelect().getLevelIndex() + 1);
+        hudLevel.render(canvas, paint);
     }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.gamesbykevin.squares.game;
+
+/**
+ * The time played on the current board, and the time limit in timed mode.<br>
+ * The time is only added while the game is updated, stopping the timer skips the time until the next update
+ * (for example while the game is paused). This has no platform dependencies, the current time is given by the caller.
+ * @author GOD
+ */
+public final class GameTimer
+{
+    /**
+     * The timer is displayed in whole seconds
+     */
+    private static final long MILLISECONDS_PER_SECOND = 1000L;
+    
+    //the time played (milliseconds)
+    private long totalTime = 0L;
+    
+    //the time of the previous update (milliseconds)
+    private long previousTime = 0L;
+    
+    //the time limit if we are counting down (milliseconds)
+    private long countdownTime = 0L;
+    
+    //is the timer stopped
+    private boolean stopped = false;
+    
+    /**
+     * Create a new timer
+     */
+    public GameTimer()
+    {
+        //the timer starts when it is reset
+    }
+    
+    /**
+     * Start over for a new board, the timer is stopped until the next update
+     * @param countdownTime The time limit (milliseconds), 0 if there is none
+     */
+    public void reset(final long countdownTime)
+    {
+        this.totalTime = 0L;
+        this.countdownTime = countdownTime;
+        stop();
+    }
+    
+    /**
+     * Stop the timer, the time until the next update is not added
+     */
+    public void stop()
+    {
+        this.stopped = true;
+    }
+    
+    /**
+     * Add the time since the previous update
+     * @param current The current time (milliseconds)
+     */
+    public void update(final long current)
+    {
+        //if we stopped the timer, start again from now
+        if (this.stopped)
+        {
+            this.stopped = false;
+            this.previousTime = current;
+        }
+        
+        //add the difference to the total time
+        this.totalTime += (current - previousTime);
+        
+        //update the previous
+        this.previousTime = current;
+    }
+    
+    /**
+     * Get the time
+     * @return The time played (milliseconds)
+     */
+    public long getTime()
+    {
+        return this.totalTime;
+    }
+    
+    /**
+     * Get the time remaining
+     * @return The time limit less the time played (milliseconds), negative once the time has run out
+     */
+    public long getRemaining()
+    {
+        return this.countdownTime - this.totalTime;
+    }
+    
+    /**
+     * Use up the time limit, so the time remaining is 0
+     */
+    public void expire()
+    {
+        this.totalTime = this.countdownTime;
+    }
+    
+    /**
+     * Get the delay until the displayed time changes
+     * @param countdown Is the time remaining displayed, instead of the time played
+     * @return The time until the next whole second is reached (milliseconds)
+     */
+    public long getDelay(final boolean countdown)
+    {
+        //the countdown changes once the remaining time drops below the current whole second
+        if (countdown)
+            return (getRemaining() % MILLISECONDS_PER_SECOND) + 1;
+        
+        return MILLISECONDS_PER_SECOND - (this.totalTime % MILLISECONDS_PER_SECOND);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.gamesbykevin.squares.game;
+
+/**
+ * A lock free queue of taps between 1 producer (the UI thread) and 1 consumer (the game thread).<br>
+ * The taps are kept in a ring buffer of preallocated arrays, so adding a tap never creates an object.
+ * Only the producer writes the tail and only the consumer writes the head,
+ * and each is volatile so the slot data written before it is visible to the other thread.
+ * @author GOD
+ */
+public final class TouchQueue
+{
+    /**
+     * The default number of taps the queue can hold
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+    
+    //the location of each tap
+    private final float[] x, y;
+    
+    //the time of each tap
+    private final long[] time;
+    
+    //used to wrap the index around the ring
+    private final int mask;
+    
+    //the next tap to remove, only written by the consumer
+    private volatile int head = 0;
+    
+    //the next slot to fill, only written by the producer
+    private volatile int tail = 0;
+    
+    /**
+     * Create a queue with the default capacity
+     */
+    public TouchQueue()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * Create a queue
+     * @param capacity The number of taps the queue can hold, this must be a power of 2
+     */
+    public TouchQueue(final int capacity)
+    {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a power of 2 - " + capacity);
+        
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.time = new long[capacity];
+        this.mask = capacity - 1;
+    }
+    
+    /**
+     * Add the tap, this is only called by the producer
+     * @param x x-coordinate
+     * @param y y-coordinate
+     * @param time The time of the tap
+     * @return true if the tap was added, false if the queue is full
+     */
+    public boolean offer(final float x, final float y, final long time)
+    {
+        final int current = tail;
+        
+        //the queue is full
+        if (current - head > mask)
+            return false;
+        
+        final int index = current & mask;
+        
+        this.x[index] = x;
+        this.y[index] = y;
+        this.time[index] = time;
+        
+        //publish the tap
+        tail = current + 1;
+        
+        return true;
+    }
+    
+    /**
+     * Is the queue empty? This is only called by the consumer
+     * @return true if there are no taps waiting, false otherwise
+     */
+    public boolean isEmpty()
+    {
+        return (head == tail);
+    }
+    
+    /**
+     * Get the x-coordinate of the first tap, this is only called by the consumer
+     * @return x-coordinate
+     */
+    public float getX()
+    {
+        return this.x[head & mask];
+    }
+    
+    /**
+     * Get the y-coordinate of the first tap, this is only called by the consumer
+     * @return y-coordinate
+     */
+    public float getY()
+    {
+        return this.y[head & mask];
+    }
+    
+    /**
+     * Get the time of the first tap, this is only called by the consumer
+     * @return The time of the tap
+     */
+    public long getTime()
+    {
+        return this.time[head & mask];
+    }
+    
+    /**
+     * Remove the first tap, this is only called by the consumer
+     */
+    public void remove()
+    {
+        if (!isEmpty())
+            head = head + 1;
+    }
+}
\ No newline at end of file
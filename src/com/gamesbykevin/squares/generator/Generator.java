@@ -0,0 +1,73 @@
+package com.gamesbykevin.squares.generator;
+
+import com.gamesbykevin.squares.solver.Puzzle;
+import com.gamesbykevin.squares.solver.SolverFactory;
+
+import java.util.Random;
+
+/**
+ * Create new levels by placing random pegs and keeping only the layouts the solver proves unique
+ * @author GOD
+ */
+public final class Generator
+{
+    /**
+     * The most random layouts we try before giving up
+     */
+    public static final int MAX_ATTEMPTS = 10000;
+    
+    //our own random object, so we don't share with other threads
+    private final Random random;
+    
+    //picks the solver to check each layout
+    private final SolverFactory solvers;
+    
+    /**
+     * Create a new generator
+     * @param seed The seed for the random number generator
+     */
+    public Generator(final long seed)
+    {
+        this.random = new Random(seed);
+        this.solvers = new SolverFactory();
+    }
+    
+    /**
+     * Generate a new level
+     * @param cols Column dimension of the board
+     * @param rows Row dimension of the board
+     * @param range The number of values each peg can have
+     * @return The value of every peg [rows][cols], the clues of this key have only 1 solution
+     * @throws Exception If we could not find a unique level
+     */
+    public int[][] generate(final int cols, final int rows, final int range) throws Exception
+    {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++)
+        {
+            final int[][] key = new int[rows][cols];
+            
+            //make sure every value is used, so the board will have the correct range
+            final boolean[] used = new boolean[range];
+            
+            for (int row = 0; row < rows; row++)
+            {
+                for (int col = 0; col < cols; col++)
+                {
+                    key[row][col] = random.nextInt(range);
+                    used[key[row][col]] = true;
+                }
+            }
+            
+            if (!used[range - 1])
+                continue;
+            
+            final Puzzle puzzle = Puzzle.fromSolution(key, range);
+            
+            //only keep the level if there is 1 solution
+            if (solvers.getSolver(puzzle).solve(puzzle, 2).isUnique())
+                return key;
+        }
+        
+        throw new Exception("Unable to generate a unique level " + cols + "x" + rows + ", range " + range);
+    }
+}
\ No newline at end of file
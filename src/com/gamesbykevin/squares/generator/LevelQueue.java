@@ -0,0 +1,205 @@
+package com.gamesbykevin.squares.generator;
+
+import com.gamesbykevin.androidframework.resources.Disposable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded queue of generated levels.<br>
+ * Background workers keep the queue full, so when the player wants the next level it is already waiting.
+ * @author GOD
+ */
+public final class LevelQueue implements Disposable
+{
+    /**
+     * The default number of levels we keep ready
+     */
+    public static final int DEFAULT_CAPACITY = 3;
+    
+    /**
+     * The default number of background workers
+     */
+    public static final int DEFAULT_WORKERS = 1;
+    
+    /**
+     * How long a worker waits before trying again after a level could not be generated (milliseconds)
+     */
+    private static final long RETRY_DELAY = 1000L;
+    
+    /**
+     * Used to give each worker a different seed
+     */
+    private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+    
+    //the levels that are ready
+    private final BlockingQueue<int[][]> levels;
+    
+    //the threads generating levels
+    private Thread[] workers;
+    
+    //the size and range of each level
+    private final int cols, rows, range;
+    
+    //generator used if the queue is ever empty
+    private Generator fallback;
+    
+    //are the workers still running
+    private volatile boolean running = true;
+    
+    /**
+     * Create a new level queue with the default capacity and workers
+     * @param cols Column dimension of the board
+     * @param rows Row dimension of the board
+     * @param range The number of values each peg can have
+     */
+    public LevelQueue(final int cols, final int rows, final int range)
+    {
+        this(cols, rows, range, DEFAULT_CAPACITY, DEFAULT_WORKERS);
+    }
+    
+    /**
+     * Create a new level queue and start the workers
+     * @param cols Column dimension of the board
+     * @param rows Row dimension of the board
+     * @param range The number of values each peg can have
+     * @param capacity The most levels we keep ready
+     * @param workers The number of background threads
+     */
+    public LevelQueue(final int cols, final int rows, final int range, final int capacity, final int workers)
+    {
+        this.cols = cols;
+        this.rows = rows;
+        this.range = range;
+        this.levels = new ArrayBlockingQueue<int[][]>(capacity);
+        this.workers = new Thread[workers];
+        
+        final long seed = System.nanoTime();
+        
+        for (int index = 0; index < workers; index++)
+        {
+            //each worker has its own generator
+            final Generator generator = new Generator(seed + (SEED_INCREMENT * (index + 1)));
+            
+            this.workers[index] = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    while (running)
+                    {
+                        try
+                        {
+                            //wait here while the queue is full
+                            levels.put(generator.generate(getCols(), getRows(), getRange()));
+                        }
+                        catch (InterruptedException e)
+                        {
+                            //we were asked to stop
+                            return;
+                        }
+                        catch (Exception e)
+                        {
+                            //report the failure and keep going, otherwise the game waits for a level forever
+                            e.printStackTrace();
+                            
+                            try
+                            {
+                                Thread.sleep(RETRY_DELAY);
+                            }
+                            catch (InterruptedException stop)
+                            {
+                                return;
+                            }
+                        }
+                    }
+                }
+            }, "LevelQueue-" + index);
+            
+            //don't compete with the game thread, and don't keep the app alive
+            this.workers[index].setPriority(Thread.MIN_PRIORITY);
+            this.workers[index].setDaemon(true);
+            this.workers[index].start();
+        }
+    }
+    
+    /**
+     * Get the columns
+     * @return Column dimension of each level
+     */
+    public int getCols()
+    {
+        return this.cols;
+    }
+    
+    /**
+     * Get the rows
+     * @return Row dimension of each level
+     */
+    public int getRows()
+    {
+        return this.rows;
+    }
+    
+    /**
+     * Get the range
+     * @return The number of values each peg can have
+     */
+    public int getRange()
+    {
+        return this.range;
+    }
+    
+    /**
+     * Is a level ready?<br>
+     * The queue only has 1 reader, so if this is true the next {@link #poll()} will not generate the level on the calling thread.
+     * @return true if a worker has generated a level that has not been taken, false otherwise
+     */
+    public boolean isReady()
+    {
+        return !levels.isEmpty();
+    }
+    
+    /**
+     * Get the next level.<br>
+     * If the workers have not caught up, the level is generated on the calling thread.
+     * @return The value of every peg [rows][cols]
+     * @throws Exception If a level could not be generated
+     */
+    public int[][] poll() throws Exception
+    {
+        final int[][] key = levels.poll();
+        
+        if (key != null)
+            return key;
+        
+        //create the fallback generator only when we need it
+        if (fallback == null)
+            fallback = new Generator(System.nanoTime());
+        
+        return fallback.generate(getCols(), getRows(), getRange());
+    }
+    
+    @Override
+    public void dispose()
+    {
+        running = false;
+        
+        if (workers != null)
+        {
+            for (int index = 0; index < workers.length; index++)
+            {
+                if (workers[index] != null)
+                {
+                    workers[index].interrupt();
+                    workers[index] = null;
+                }
+            }
+            
+            workers = null;
+        }
+        
+        levels.clear();
+        fallback = null;
+    }
+}
\ No newline at end of file
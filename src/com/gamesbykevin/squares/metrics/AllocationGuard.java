@@ -0,0 +1,154 @@
+package com.gamesbykevin.squares.metrics;
+
+import android.os.Debug;
+
+/**
+ * Verify the game loop does not create objects once it has settled.<br>
+ * The objects created by the game thread are counted each frame. After a state has been displayed for
+ * a number of frames, any frame in a steady state that still creates objects is recorded as a violation.
+ * Counting allocations slows the runtime down, so this should only be used while debugging.
+ * @author GOD
+ */
+public final class AllocationGuard
+{
+    /**
+     * The number of frames after a state change before we expect no allocations
+     */
+    public static final int WARMUP_FRAMES = 60;
+    
+    //is each state expected to be free of allocations
+    private final boolean[] steady;
+    
+    //the number of frames checked in each state
+    private final long[] frames;
+    
+    //the number of frames in each state that created objects
+    private final long[] violations;
+    
+    //the number of objects created in each state
+    private final long[] allocations;
+    
+    //the state of the previous frame
+    private Enum<?> previous;
+    
+    //the number of frames left before we check
+    private int warmup = WARMUP_FRAMES;
+    
+    /**
+     * Create a new guard and start counting allocations
+     * @param states Every state a frame can be in, indexed by ordinal
+     * @param steady The states that are expected to be free of allocations
+     */
+    public AllocationGuard(final Enum<?>[] states, final Enum<?>... steady)
+    {
+        this.steady = new boolean[states.length];
+        this.frames = new long[states.length];
+        this.violations = new long[states.length];
+        this.allocations = new long[states.length];
+        
+        for (Enum<?> state : steady)
+        {
+            this.steady[state.ordinal()] = true;
+        }
+        
+        Debug.startAllocCounting();
+    }
+    
+    /**
+     * Call before the frame is updated
+     */
+    public void begin()
+    {
+        Debug.resetThreadAllocCount();
+    }
+    
+    /**
+     * Call after the frame is drawn
+     * @param state The state during the frame, may be null
+     * @return true if the frame is in a steady state and created objects, false otherwise
+     */
+    public boolean end(final Enum<?> state)
+    {
+        final int count = Debug.getThreadAllocCount();
+        
+        //a new state is allowed to setup before we check
+        if (state != previous)
+        {
+            previous = state;
+            warmup = WARMUP_FRAMES;
+        }
+        
+        if (state == null || warmup > 0)
+        {
+            if (warmup > 0)
+                warmup--;
+            
+            return false;
+        }
+        
+        frames[state.ordinal()]++;
+        allocations[state.ordinal()] += count;
+        
+        if (!steady[state.ordinal()] || count == 0)
+            return false;
+        
+        violations[state.ordinal()]++;
+        
+        return true;
+    }
+    
+    /**
+     * Get the violations
+     * @param state The state
+     * @return The number of frames in the state that created objects after the warmup
+     */
+    public long getViolations(final Enum<?> state)
+    {
+        return this.violations[state.ordinal()];
+    }
+    
+    /**
+     * Were there any violations?
+     * @return true if any frame in a steady state created objects, false otherwise
+     */
+    public boolean hasViolations()
+    {
+        for (int index = 0; index < violations.length; index++)
+        {
+            if (steady[index] && violations[index] > 0)
+                return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Get the report as plain text.<br>
+     * Each line has the state, the frames checked, the frames that allocated and the objects created.
+     * @param states Every state a frame can be in, indexed by ordinal
+     * @return The text of the report
+     */
+    public String dump(final Enum<?>[] states)
+    {
+        final StringBuilder builder = new StringBuilder();
+        
+        for (Enum<?> state : states)
+        {
+            builder.append(state).append(steady[state.ordinal()] ? " steady" : "");
+            builder.append(" frames=").append(frames[state.ordinal()]);
+            builder.append(" violations=").append(violations[state.ordinal()]);
+            builder.append(" allocations=").append(allocations[state.ordinal()]);
+            builder.append('\n');
+        }
+        
+        return builder.toString();
+    }
+    
+    /**
+     * Stop counting allocations
+     */
+    public void dispose()
+    {
+        Debug.stopAllocCounting();
+    }
+}
\ No newline at end of file
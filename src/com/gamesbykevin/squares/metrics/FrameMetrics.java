@@ -0,0 +1,277 @@
+package com.gamesbykevin.squares.metrics;
+
+/**
+ * The measurements of the game loop.<br>
+ * Each frame records the time spent waiting for the canvas, updating and drawing,
+ * and each tap records the time from the touch until it was applied to the board.
+ * The number of frames in each screen state is also counted.<br>
+ * Recording never creates an object, so this can stay enabled in a release build.
+ * The game thread does the recording, a snapshot can be taken from any thread.
+ * Recording, taking a snapshot and resetting hold the lock of the metrics, so a snapshot never has half a frame.
+ * The lock is only held by another thread while it copies, so the game thread rarely waits on it.
+ * @author GOD
+ */
+public final class FrameMetrics
+{
+    /**
+     * The unit of the durations in the text dump, microseconds
+     */
+    private static final long DUMP_UNIT = 1000L;
+    
+    //the names of each state
+    private final String[] states;
+    
+    //the number of frames in each state
+    private final long[] stateFrames;
+    
+    //the total number of frames
+    private long frames;
+    
+    //the measurements of the most recent frame (nanoseconds)
+    private long lastLockWait, lastUpdate, lastDraw;
+    
+    //the total time of each frame (nanoseconds)
+    private final Histogram frame = new Histogram("frame");
+    
+    //the time spent updating each frame (nanoseconds)
+    private final Histogram update = new Histogram("update");
+    
+    //the time spent drawing each frame (nanoseconds)
+    private final Histogram draw = new Histogram("draw");
+    
+    //the time spent waiting to lock the canvas each frame (nanoseconds)
+    private final Histogram lockWait = new Histogram("lock");
+    
+    //the time from a tap until it is applied to the board (nanoseconds)
+    private final Histogram inputLatency = new Histogram("input");
+    
+    /**
+     * Create new metrics
+     * @param states Each state a frame can be counted in, indexed by ordinal
+     */
+    public FrameMetrics(final Enum<?>[] states)
+    {
+        this.states = new String[states.length];
+        this.stateFrames = new long[states.length];
+        
+        for (int index = 0; index < states.length; index++)
+        {
+            this.states[states[index].ordinal()] = states[index].toString();
+        }
+    }
+    
+    /**
+     * Create an empty copy
+     * @param metrics The metrics to copy the states from
+     */
+    private FrameMetrics(final FrameMetrics metrics)
+    {
+        this.states = metrics.states;
+        this.stateFrames = new long[metrics.stateFrames.length];
+    }
+    
+    /**
+     * Record a frame
+     * @param state The state during the frame, may be null
+     * @param lockWait The time spent waiting to lock the canvas (nanoseconds)
+     * @param update The time spent updating (nanoseconds)
+     * @param draw The time spent drawing (nanoseconds)
+     */
+    public synchronized void recordFrame(final Enum<?> state, final long lockWait, final long update, final long draw)
+    {
+        this.frames++;
+        
+        if (state != null)
+            this.stateFrames[state.ordinal()]++;
+        
+        this.frame.record(lockWait + update + draw);
+        this.lockWait.record(lockWait);
+        this.update.record(update);
+        this.draw.record(draw);
+        
+        this.lastLockWait = lockWait;
+        this.lastUpdate = update;
+        this.lastDraw = draw;
+    }
+    
+    /**
+     * Record a tap being applied to the board
+     * @param latency The time from the touch until it was applied (nanoseconds)
+     */
+    public synchronized void recordInput(final long latency)
+    {
+        this.inputLatency.record(latency);
+    }
+    
+    /**
+     * Get the frames
+     * @return The total number of frames recorded
+     */
+    public long getFrames()
+    {
+        return this.frames;
+    }
+    
+    /**
+     * Get the frames of the state
+     * @param state The state
+     * @return The number of frames recorded in the state
+     */
+    public long getFrames(final Enum<?> state)
+    {
+        return this.stateFrames[state.ordinal()];
+    }
+    
+    /**
+     * Get the last lock wait
+     * @return The time spent waiting to lock the canvas in the most recent frame (nanoseconds)
+     */
+    public long getLastLockWait()
+    {
+        return this.lastLockWait;
+    }
+    
+    /**
+     * Get the last update
+     * @return The time spent updating in the most recent frame (nanoseconds)
+     */
+    public long getLastUpdate()
+    {
+        return this.lastUpdate;
+    }
+    
+    /**
+     * Get the last draw
+     * @return The time spent drawing in the most recent frame (nanoseconds)
+     */
+    public long getLastDraw()
+    {
+        return this.lastDraw;
+    }
+    
+    /**
+     * Get the frame histogram.<br>
+     * This is still being recorded, from another thread read it from a {@link #snapshot()}.
+     * @return The total time of each frame (nanoseconds)
+     */
+    public Histogram getFrame()
+    {
+        return this.frame;
+    }
+    
+    /**
+     * Get the update histogram.<br>
+     * This is still being recorded, from another thread read it from a {@link #snapshot()}.
+     * @return The time spent updating each frame (nanoseconds)
+     */
+    public Histogram getUpdate()
+    {
+        return this.update;
+    }
+    
+    /**
+     * Get the draw histogram.<br>
+     * This is still being recorded, from another thread read it from a {@link #snapshot()}.
+     * @return The time spent drawing each frame (nanoseconds)
+     */
+    public Histogram getDraw()
+    {
+        return this.draw;
+    }
+    
+    /**
+     * Get the lock wait histogram.<br>
+     * This is still being recorded, from another thread read it from a {@link #snapshot()}.
+     * @return The time spent waiting to lock the canvas each frame (nanoseconds)
+     */
+    public Histogram getLockWait()
+    {
+        return this.lockWait;
+    }
+    
+    /**
+     * Get the input latency histogram.<br>
+     * This is still being recorded, from another thread read it from a {@link #snapshot()}.
+     * @return The time from each tap until it was applied to the board (nanoseconds)
+     */
+    public Histogram getInputLatency()
+    {
+        return this.inputLatency;
+    }
+    
+    /**
+     * Copy the current measurements
+     * @return A copy that will not change as more frames are recorded
+     */
+    public synchronized FrameMetrics snapshot()
+    {
+        final FrameMetrics copy = new FrameMetrics(this);
+        
+        copy.frames = frames;
+        copy.lastLockWait = lastLockWait;
+        copy.lastUpdate = lastUpdate;
+        copy.lastDraw = lastDraw;
+        System.arraycopy(stateFrames, 0, copy.stateFrames, 0, stateFrames.length);
+        frame.copyTo(copy.frame);
+        update.copyTo(copy.update);
+        draw.copyTo(copy.draw);
+        lockWait.copyTo(copy.lockWait);
+        inputLatency.copyTo(copy.inputLatency);
+        
+        return copy;
+    }
+    
+    /**
+     * Remove every measurement.<br>
+     * This can be called from any thread, a frame being recorded is either kept whole or removed.
+     */
+    public synchronized void reset()
+    {
+        frames = 0;
+        lastLockWait = 0;
+        lastUpdate = 0;
+        lastDraw = 0;
+        
+        for (int index = 0; index < stateFrames.length; index++)
+        {
+            stateFrames[index] = 0;
+        }
+        
+        frame.reset();
+        update.reset();
+        draw.reset();
+        lockWait.reset();
+        inputLatency.reset();
+    }
+    
+    /**
+     * Get the measurements as plain text.<br>
+     * The first line is the total frames, followed by a line for each state and a line for each histogram in microseconds.
+     * @return The text of the measurements
+     */
+    public String dump()
+    {
+        final StringBuilder builder = new StringBuilder();
+        
+        builder.append("frames ").append(frames).append('\n');
+        
+        for (int index = 0; index < states.length; index++)
+        {
+            builder.append("state ").append(states[index]).append(' ').append(stateFrames[index]).append('\n');
+        }
+        
+        frame.dump(builder, DUMP_UNIT);
+        lockWait.dump(builder, DUMP_UNIT);
+        update.dump(builder, DUMP_UNIT);
+        draw.dump(builder, DUMP_UNIT);
+        inputLatency.dump(builder, DUMP_UNIT);
+        
+        return builder.toString();
+    }
+    
+    @Override
+    public String toString()
+    {
+        return dump();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.gamesbykevin.squares.metrics;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Count garbage collections without any platform api.<br>
+ * A sentinel object is only weakly reachable, so the collector clears it the next time it runs.
+ * Each time we find it cleared we count a collection and create a new sentinel.
+ * Collections that happen between 2 checks are counted once.
+ * @author GOD
+ */
+public final class GarbageMonitor
+{
+    //the object the collector will clear
+    private WeakReference<Object> sentinel;
+    
+    //the number of collections seen
+    private long count;
+    
+    /**
+     * Create a new monitor
+     */
+    public GarbageMonitor()
+    {
+        this.sentinel = new WeakReference<Object>(new Object());
+    }
+    
+    /**
+     * Check if the collector has run.<br>
+     * This only creates an object when a collection is found.
+     * @return The number of collections seen since this monitor was created
+     */
+    public long poll()
+    {
+        if (sentinel.get() == null)
+        {
+            count++;
+            sentinel = new WeakReference<Object>(new Object());
+        }
+        
+        return this.count;
+    }
+    
+    /**
+     * Get the count
+     * @return The number of collections seen, as of the last poll
+     */
+    public long getCount()
+    {
+        return this.count;
+    }
+    
+    /**
+     * Get the heap used
+     * @return The number of bytes of the heap that are in use
+     */
+    public static long getHeapUsed()
+    {
+        final Runtime runtime = Runtime.getRuntime();
+        
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,233 @@
+package com.gamesbykevin.squares.metrics;
+
+/**
+ * A fixed size histogram of durations with log-linear buckets, similar to an HDR histogram.<br>
+ * Each power of 2 is split into 32 buckets, so every value is kept within about 3% of its actual value,
+ * from 1 nanosecond up to about 18 minutes. Larger values are kept in the last bucket.<br>
+ * Recording a value never creates an object. A histogram is recorded to by 1 thread,
+ * reading it from another thread may see a value that is only partly recorded.
+ * @author GOD
+ */
+public final class Histogram
+{
+    /**
+     * The number of bits used for the buckets within each power of 2
+     */
+    private static final int SUB_BITS = 5;
+    
+    /**
+     * The number of buckets within each power of 2
+     */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    
+    /**
+     * The largest power of 2 that has its own buckets
+     */
+    private static final int MAX_EXPONENT = 40;
+    
+    /**
+     * The total number of buckets
+     */
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) << SUB_BITS;
+    
+    //the name of this histogram
+    private final String name;
+    
+    //the number of values in each bucket
+    private final long[] counts = new long[BUCKETS];
+    
+    //the number of values recorded
+    private long count;
+    
+    //the total of the values recorded
+    private long total;
+    
+    //the smallest and largest value recorded
+    private long min, max;
+    
+    /**
+     * Create a new histogram
+     * @param name The name of the histogram
+     */
+    public Histogram(final String name)
+    {
+        this.name = name;
+        reset();
+    }
+    
+    /**
+     * Get the name
+     * @return The name of the histogram
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+    
+    /**
+     * Get the bucket of the value
+     * @param value The value
+     * @return The index of the bucket
+     */
+    private static int getIndex(final long value)
+    {
+        //small values have a bucket each
+        if (value < SUB_COUNT)
+            return (int)value;
+        
+        //the power of 2 of the value
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        
+        //values that are too large go in the last bucket
+        if (exponent > MAX_EXPONENT)
+            return BUCKETS - 1;
+        
+        final int shift = exponent - SUB_BITS;
+        
+        return ((shift + 1) << SUB_BITS) + (int)((value >>> shift) & (SUB_COUNT - 1));
+    }
+    
+    /**
+     * Get the largest value of the bucket
+     * @param index The index of the bucket
+     * @return The largest value that is kept in the bucket
+     */
+    private static long getHighest(final int index)
+    {
+        if (index < SUB_COUNT)
+            return index;
+        
+        final int shift = (index >> SUB_BITS) - 1;
+        final long lowest = (long)(SUB_COUNT + (index & (SUB_COUNT - 1))) << shift;
+        
+        return lowest + (1L << shift) - 1;
+    }
+    
+    /**
+     * Record the value
+     * @param value The duration, negative values are recorded as 0
+     */
+    public void record(long value)
+    {
+        if (value < 0)
+            value = 0;
+        
+        counts[getIndex(value)]++;
+        count++;
+        total += value;
+        
+        if (value < min)
+            min = value;
+        if (value > max)
+            max = value;
+    }
+    
+    /**
+     * Remove every value
+     */
+    public void reset()
+    {
+        for (int index = 0; index < counts.length; index++)
+        {
+            counts[index] = 0;
+        }
+        
+        this.count = 0;
+        this.total = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = 0;
+    }
+    
+    /**
+     * Copy the values to another histogram
+     * @param histogram The histogram to replace with a copy of these values
+     */
+    public void copyTo(final Histogram histogram)
+    {
+        System.arraycopy(counts, 0, histogram.counts, 0, counts.length);
+        histogram.count = count;
+        histogram.total = total;
+        histogram.min = min;
+        histogram.max = max;
+    }
+    
+    /**
+     * Get the count
+     * @return The number of values recorded
+     */
+    public long getCount()
+    {
+        return this.count;
+    }
+    
+    /**
+     * Get the smallest value
+     * @return The smallest value recorded, 0 if there are none
+     */
+    public long getMin()
+    {
+        return (count == 0) ? 0 : this.min;
+    }
+    
+    /**
+     * Get the largest value
+     * @return The largest value recorded, 0 if there are none
+     */
+    public long getMax()
+    {
+        return this.max;
+    }
+    
+    /**
+     * Get the mean
+     * @return The average value recorded, 0 if there are none
+     */
+    public long getMean()
+    {
+        return (count == 0) ? 0 : total / count;
+    }
+    
+    /**
+     * Get the value at the percentile
+     * @param percentile The percentile (0 - 100)
+     * @return The value that the percentage of values are less than or equal to, within the precision of the buckets
+     */
+    public long getPercentile(final double percentile)
+    {
+        if (count == 0)
+            return 0;
+        
+        //the number of values we need to reach
+        final long target = Math.max(1, (long)Math.ceil((Math.min(100, Math.max(0, percentile)) / 100.0) * count));
+        
+        long cumulative = 0;
+        
+        for (int index = 0; index < counts.length; index++)
+        {
+            cumulative += counts[index];
+            
+            if (cumulative >= target)
+                return Math.min(getHighest(index), getMax());
+        }
+        
+        return getMax();
+    }
+    
+    /**
+     * Write the summary as a line of text
+     * @param builder Where the text is written
+     * @param unit The value of 1 unit of the output, for example 1000 to write nanoseconds as microseconds
+     */
+    public void dump(final StringBuilder builder, final long unit)
+    {
+        builder.append(getName());
+        builder.append(" count=").append(getCount());
+        builder.append(" min=").append(getMin() / unit);
+        builder.append(" mean=").append(getMean() / unit);
+        builder.append(" p50=").append(getPercentile(50) / unit);
+        builder.append(" p90=").append(getPercentile(90) / unit);
+        builder.append(" p99=").append(getPercentile(99) / unit);
+        builder.append(" max=").append(getMax() / unit);
+        builder.append('\n');
+    }
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.gamesbykevin.squares.metrics;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import com.gamesbykevin.squares.text.TextBuffer;
+
+/**
+ * Draw the frame measurements on top of the screen.<br>
+ * The paint and each line of text are created once, so drawing the overlay does not create any objects
+ * and turning it on does not change the numbers it shows.
+ * @author GOD
+ */
+public final class PerformanceOverlay
+{
+    /**
+     * The location of the overlay
+     */
+    private static final int X = 5, Y = 5;
+    
+    /**
+     * The size of the text
+     */
+    private static final float TEXT_SIZE = 16f;
+    
+    /**
+     * The space between each line
+     */
+    private static final int LINE_HEIGHT = 20;
+    
+    /**
+     * The width of the background
+     */
+    private static final int WIDTH = 250;
+    
+    /**
+     * The number of lines of text
+     */
+    private static final int LINES = 4;
+    
+    /**
+     * The most characters on each line
+     */
+    private static final int LINE_CAPACITY = 48;
+    
+    /**
+     * The number of nanoseconds in 1/100 of a millisecond, the precision we display
+     */
+    private static final long NANOS_PER_DECIMAL = 10000L;
+    
+    /**
+     * The number of bytes in a kilobyte
+     */
+    private static final long BYTES_PER_KILOBYTE = 1024L;
+    
+    //the paint for the text and the background
+    private final Paint paint, background;
+    
+    //each line of text
+    private final TextBuffer[] lines;
+    
+    //counts the garbage collections
+    private final GarbageMonitor monitor = new GarbageMonitor();
+    
+    /**
+     * Create a new overlay
+     */
+    public PerformanceOverlay()
+    {
+        this.paint = new Paint();
+        this.paint.setColor(Color.WHITE);
+        this.paint.setTextSize(TEXT_SIZE);
+        this.paint.setAntiAlias(true);
+        
+        this.background = new Paint();
+        this.background.setColor(Color.BLACK);
+        this.background.setAlpha(160);
+        
+        this.lines = new TextBuffer[LINES];
+        
+        for (int index = 0; index < lines.length; index++)
+        {
+            lines[index] = new TextBuffer(LINE_CAPACITY);
+        }
+    }
+    
+    /**
+     * Write the milliseconds with 2 decimals
+     * @param line The line of text
+     * @param nanos The duration (nanoseconds)
+     * @return The line of text
+     */
+    private static TextBuffer appendMillis(final TextBuffer line, final long nanos)
+    {
+        return line.appendDecimal(nanos / NANOS_PER_DECIMAL, 2).append("ms");
+    }
+    
+    /**
+     * Draw the overlay
+     * @param canvas Object we are writing pixel data to
+     * @param metrics The frame measurements
+     * @param cols Column dimension of the board, 0 if there is no board
+     * @param rows Row dimension of the board, 0 if there is no board
+     * @param mismatches The number of mismatched blocks on the board
+     */
+    public void render(final Canvas canvas, final FrameMetrics metrics, final int cols, final int rows, final int mismatches)
+    {
+        //the current frame is the lock wait, update and draw combined
+        final long frame = metrics.getLastLockWait() + metrics.getLastUpdate() + metrics.getLastDraw();
+        
+        appendMillis(lines[0].clear().append("frame "), frame);
+        appendMillis(lines[0].append(" p99 "), metrics.getFrame().getPercentile(99));
+        
+        appendMillis(lines[1].clear().append("update "), metrics.getLastUpdate());
+        appendMillis(lines[1].append(" draw "), metrics.getLastDraw());
+        
+        lines[2].clear().append("heap ").append(GarbageMonitor.getHeapUsed() / BYTES_PER_KILOBYTE).append("KB gc ").append(monitor.poll());
+        
+        lines[3].clear();
+        
+        if (cols > 0 && rows > 0)
+        {
+            lines[3].append("board ").append(cols).append('x').append(rows).append(" mismatch ").append(mismatches);
+        }
+        else
+        {
+            lines[3].append("board none");
+        }
+        
+        //darken the area behind the text
+        canvas.drawRect(X, Y, X + WIDTH, Y + (LINES * LINE_HEIGHT) + (LINE_HEIGHT / 2), background);
+        
+        for (int index = 0; index < lines.length; index++)
+        {
+            canvas.drawText(lines[index].getChars(), 0, lines[index].length(), X + 5, Y + ((index + 1) * LINE_HEIGHT), paint);
+        }
+    }
+}
\ No newline at end of file
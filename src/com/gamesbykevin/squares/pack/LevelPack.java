@@ -0,0 +1,304 @@
+package com.gamesbykevin.squares.pack;
+
+import com.gamesbykevin.squares.core.BitBoard;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A compact binary file of levels.<br>
+ * Each peg is packed into 1 bit (2 bits when a peg can have 3 values) and an index of offsets
+ * lets us decode a single level without reading the others.<br>
+ * <br>
+ * Layout (big endian):<br>
+ * int magic, short version, byte bits per peg, byte range, int level count,<br>
+ * int offset of each level (relative to the first level),<br>
+ * each level: byte cols, byte rows, followed by the pegs row by row, lowest bit first
+ * @author GOD
+ */
+public final class LevelPack
+{
+    /**
+     * Identifies the file as a level pack, "SQPK"
+     */
+    public static final int MAGIC = 0x5351504B;
+    
+    /**
+     * The current version of the layout
+     */
+    public static final int VERSION = 1;
+    
+    /**
+     * The extension of each level pack
+     */
+    public static final String EXTENSION = ".pack";
+    
+    /**
+     * The size of the header before the offset index
+     */
+    private static final int HEADER_SIZE = 12;
+    
+    /**
+     * The size of the level header before the pegs
+     */
+    private static final int LEVEL_HEADER_SIZE = 2;
+    
+    //the contents of the file
+    private final ByteBuffer buffer;
+    
+    //the number of bits for each peg
+    private final int bits;
+    
+    //the most values a peg can have in this pack
+    private final int range;
+    
+    //the number of levels
+    private final int count;
+    
+    //where the first level starts
+    private final int start;
+    
+    /**
+     * Create a level pack from the contents of the file
+     * @param buffer The contents of the file, this can be memory mapped
+     * @throws Exception If the contents are not a valid level pack
+     */
+    public LevelPack(final ByteBuffer buffer) throws Exception
+    {
+        this.buffer = buffer;
+        
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new Exception("Not a level pack");
+        if (buffer.getShort(4) != VERSION)
+            throw new Exception("Level pack version not supported - " + buffer.getShort(4));
+        
+        this.bits = buffer.get(6);
+        this.range = buffer.get(7);
+        this.count = buffer.getInt(8);
+        this.start = HEADER_SIZE + (count * 4);
+        
+        if (bits != 1 && bits != 2)
+            throw new Exception("Invalid bits per peg - " + bits);
+        if (count < 0 || start > buffer.limit())
+            throw new Exception("Invalid level count - " + count);
+    }
+    
+    /**
+     * Read the level pack from the stream
+     * @param input The stream containing the level pack, this will be closed
+     * @return The level pack
+     * @throws Exception If the stream could not be read, or is not a valid level pack
+     */
+    public static LevelPack read(final InputStream input) throws Exception
+    {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        
+        try
+        {
+            final byte[] chunk = new byte[4096];
+            
+            int length;
+            
+            while ((length = input.read(chunk)) > 0)
+            {
+                output.write(chunk, 0, length);
+            }
+        }
+        finally
+        {
+            input.close();
+        }
+        
+        return new LevelPack(ByteBuffer.wrap(output.toByteArray()));
+    }
+    
+    /**
+     * Get the count
+     * @return The number of levels in this pack
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+    
+    /**
+     * Get the range
+     * @return The most values a peg can have in this pack
+     */
+    public int getRange()
+    {
+        return this.range;
+    }
+    
+    /**
+     * Get the position of the level
+     * @param index The level index
+     * @return The position in the buffer where the level starts
+     */
+    private int getOffset(final int index)
+    {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Level index " + index + ", count " + count);
+        
+        return start + buffer.getInt(HEADER_SIZE + (index * 4));
+    }
+    
+    /**
+     * Get the columns
+     * @param index The level index
+     * @return Column dimension of the level
+     */
+    public int getCols(final int index)
+    {
+        return buffer.get(getOffset(index)) & 0xFF;
+    }
+    
+    /**
+     * Get the rows
+     * @param index The level index
+     * @return Row dimension of the level
+     */
+    public int getRows(final int index)
+    {
+        return buffer.get(getOffset(index) + 1) & 0xFF;
+    }
+    
+    /**
+     * Decode the level into the board.<br>
+     * The board must already be reset to the dimensions of the level.
+     * @param index The level index
+     * @param key The board to assign the value of each peg
+     * @return The range of the level, 1 more than the largest value of any peg
+     */
+    public int decode(final int index, final BitBoard key)
+    {
+        final int offset = getOffset(index) + LEVEL_HEADER_SIZE;
+        final int cols = getCols(index);
+        final int rows = getRows(index);
+        final int mask = (1 << bits) - 1;
+        
+        int range = 0;
+        
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                //locate the bits of this peg
+                final int position = ((row * cols) + col) * bits;
+                
+                final int value = ((buffer.get(offset + (position >> 3)) & 0xFF) >> (position & 7)) & mask;
+                
+                key.set(col, row, value);
+                
+                //check if we have a new range
+                if (value >= range)
+                    range = value + 1;
+            }
+        }
+        
+        return range;
+    }
+    
+    /**
+     * Get the key of the level
+     * @param index The level index
+     * @return The value of every peg [rows][cols]
+     */
+    public int[][] getKey(final int index)
+    {
+        final int cols = getCols(index);
+        final int rows = getRows(index);
+        
+        final BitBoard board = new BitBoard(cols, rows);
+        decode(index, board);
+        
+        final int[][] key = new int[rows][cols];
+        
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                key[row][col] = board.get(col, row);
+            }
+        }
+        
+        return key;
+    }
+    
+    /**
+     * Write the levels as a level pack
+     * @param output The stream to write to
+     * @param keys The value of every peg of each level [rows][cols]
+     * @throws IOException
+     */
+    public static void write(final OutputStream output, final List<int[][]> keys) throws IOException
+    {
+        //determine the range of the pack
+        int range = 0;
+        
+        for (int[][] key : keys)
+        {
+            for (int[] row : key)
+            {
+                for (int value : row)
+                {
+                    if (value >= range)
+                        range = value + 1;
+                }
+            }
+        }
+        
+        final int bits = (range > 2) ? 2 : 1;
+        
+        //pack each level
+        final ByteArrayOutputStream levels = new ByteArrayOutputStream();
+        final int[] offsets = new int[keys.size()];
+        
+        for (int index = 0; index < keys.size(); index++)
+        {
+            final int[][] key = keys.get(index);
+            final int rows = key.length;
+            final int cols = key[0].length;
+            
+            if (cols > BitBoard.MAX_COLS || rows > 0xFF)
+                throw new IOException("Level " + index + " is too large - " + cols + "x" + rows);
+            
+            offsets[index] = levels.size();
+            
+            final byte[] pegs = new byte[((cols * rows * bits) + 7) / 8];
+            
+            for (int row = 0; row < rows; row++)
+            {
+                for (int col = 0; col < cols; col++)
+                {
+                    final int position = ((row * cols) + col) * bits;
+                    pegs[position >> 3] |= (byte)(key[row][col] << (position & 7));
+                }
+            }
+            
+            levels.write(cols);
+            levels.write(rows);
+            levels.write(pegs);
+        }
+        
+        final DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeByte(bits);
+        data.writeByte(range);
+        data.writeInt(keys.size());
+        
+        for (int offset : offsets)
+        {
+            data.writeInt(offset);
+        }
+        
+        levels.writeTo(data);
+        data.flush();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.gamesbykevin.squares.pack;
+
+/**
+ * The key of each level pack.<br>
+ * Each level pack in the "pack" assets folder is named after the key in lower case.
+ * This has no platform dependencies, so the tools that write and check the packs can use it without Android.
+ * @author GOD
+ */
+public enum TextKey
+{
+    Easy, Expert, Hard, Normal, Twisted;
+    
+    /**
+     * Get the file name of the level pack
+     * @return The file name, including the extension
+     */
+    public String getFileName()
+    {
+        return toString().toLowerCase() + LevelPack.EXTENSION;
+    }
+}
\ No newline at end of file
@@ -9,7 +9,9 @@ import com.gamesbykevin.androidframework.resources.Disposable;
 
 import com.gamesbykevin.squares.MainActivity;
 import com.gamesbykevin.squares.assets.Assets;
+import com.gamesbykevin.squares.metrics.FrameMetrics;
 import com.gamesbykevin.squares.screen.MainScreen;
+import com.gamesbykevin.squares.storage.Persistence;
 import com.gamesbykevin.squares.thread.MainThread;
 
 import java.util.Random;
@@ -29,6 +31,11 @@ public class GamePanel extends SurfaceView implements SurfaceHolder.Callback, Di
     public static final int WIDTH = 480;
     public static final int HEIGHT = 800;
     
+    /**
+     * The number of fingers that toggle the performance overlay
+     */
+    private static final int OVERLAY_POINTERS = 3;
+    
     //the reference to our activity
     private final MainActivity activity;
     
@@ -38,6 +45,12 @@ public class GamePanel extends SurfaceView implements SurfaceHolder.Callback, Di
     //our main game thread
     private MainThread thread;
     
+    //writes our saved data in the background
+    private Persistence persistence;
+    
+    //the measurements of the game loop, kept while the thread is restarted
+    private final FrameMetrics metrics = new FrameMetrics(MainScreen.State.values());
+    
     /**
      * Create a new game panel
      * @param activity Our main activity reference
@@ -53,6 +66,9 @@ public class GamePanel extends SurfaceView implements SurfaceHolder.Callback, Di
         //make game panel focusable = true so it can handle events
         super.setFocusable(true);
         
+        //create the storage worker before anything is loaded
+        this.persistence = new Persistence(activity.getFilesDir());
+        
         try
         {
             //load game resources
@@ -110,6 +126,13 @@ public class GamePanel extends SurfaceView implements SurfaceHolder.Callback, Di
             screen = null;
         }
         
+        //finish writing anything the screens saved
+        if (persistence != null)
+        {
+            persistence.dispose();
+            persistence = null;
+        }
+        
         //recycle asset objects
         Assets.recycle();
     }
@@ -123,6 +146,62 @@ public class GamePanel extends SurfaceView implements SurfaceHolder.Callback, Di
         return this.activity;
     }
     
+    /**
+     * Is the player on the board?
+     * @return true if the game is running and a level is selected, false if on a menu or level select
+     */
+    public boolean isInteractive()
+    {
+        return (screen != null && screen.isInteractive());
+    }
+    
+    /**
+     * Request a frame, the game will be updated and rendered as soon as possible.<br>
+     * Nothing is updated or rendered until something changes.
+     */
+    public void requestRender()
+    {
+        if (thread != null)
+            thread.invalidate();
+    }
+    
+    /**
+     * Request a frame after the delay
+     * @param delay The number of milliseconds from now
+     */
+    public void requestRender(final long delay)
+    {
+        if (thread != null)
+            thread.schedule(delay);
+    }
+    
+    /**
+     * Get the persistence
+     * @return The worker that writes our saved data in the background
+     */
+    public final Persistence getPersistence()
+    {
+        return this.persistence;
+    }
+    
+    /**
+     * Get the metrics
+     * @return The measurements of the game loop
+     */
+    public final FrameMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+    
+    /**
+     * Get the state
+     * @return The current state of the main screen, null if it has not been created
+     */
+    public MainScreen.State getState()
+    {
+        return (screen != null) ? screen.getState() : null;
+    }
+    
     /**
      * Now that the surface has been created we can create our game objects
      * @param holder 
@@ -177,8 +256,24 @@ public class GamePanel extends SurfaceView implements SurfaceHolder.Callback, Di
                 final float x = event.getRawX() * scaleFactorX;
                 final float y = event.getRawY() * scaleFactorY;
 
+                //let the frame rate speed up if we were idle
+                if (thread != null)
+                    thread.getGovernor().onInput();
+                
+                //a tap with 3 fingers toggles the performance overlay
+                if (event.getActionMasked() == MotionEvent.ACTION_POINTER_DOWN && event.getPointerCount() == OVERLAY_POINTERS)
+                {
+                    this.screen.setOverlayEnabled(!this.screen.isOverlayEnabled());
+                    return true;
+                }
+                
                 //update the events
-                return this.screen.update(event, x, y);
+                final boolean result = this.screen.update(event, x, y);
+                
+                //the input may have changed what is displayed
+                requestRender();
+                
+                return result;
             }
         }
         catch (Exception e)
@@ -201,12 +296,21 @@ public class GamePanel extends SurfaceView implements SurfaceHolder.Callback, Di
             //set the state
             screen.setState(MainScreen.State.Paused);
         }
+        
+        //we may not come back, so write anything pending
+        if (persistence != null)
+            persistence.flush();
+        
+        //display what we measured while the surface was shown
+        if (MainThread.DEBUG)
+            System.out.println(metrics.dump());
     }
     
     @Override
     public void surfaceChanged(SurfaceHolder holder, int format, int width, int height)
     {
-        //does anything need to be done here?
+        //the surface needs to be drawn again
+        requestRender();
     }
     
     /**
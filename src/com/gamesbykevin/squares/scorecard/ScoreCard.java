@@ -3,20 +3,26 @@ package com.gamesbykevin.squares.scorecard;
 import android.app.Activity;
 
 import com.gamesbykevin.androidframework.io.storage.Internal;
+import com.gamesbykevin.squares.core.Score;
+import com.gamesbykevin.squares.core.ScoreTable;
 import com.gamesbykevin.squares.game.Game;
 import com.gamesbykevin.squares.screen.OptionsScreen;
+import com.gamesbykevin.squares.storage.Persistence;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
 
 /**
- * Here we will track the best time and save it to the internal storage
+ * Here we will track the best time and save it to the internal storage.<br>
+ * The best times are kept in the {@link ScoreTable}, this loads and saves them.<br>
+ * Each new best time is appended to a journal in the background, the original save file is only read once to move the scores to the journal.
  * @author GOD
  */
 public final class ScoreCard extends Internal
 {
-    //list of scores
-    private List<Score> scores;
+    //the best time of each level and difficulty
+    private final ScoreTable table = new ScoreTable();
     
     /**
      * New score separator string
@@ -28,21 +34,48 @@ public final class ScoreCard extends Internal
      */
     private static final String SEPARATOR = "-";
     
+    /**
+     * The name of the journal file in the internal storage
+     */
+    private static final String JOURNAL_FILE = "ScoreCard.journal";
+    
     //our game reference object
     private final Game game;
     
-    public ScoreCard(final Game game, final Activity activity)
+    //where the scores are saved
+    private ScoreJournal journal;
+    
+    /**
+     * Create the score card and load the saved scores
+     * @param game Our game reference object
+     * @param activity Our activity, used to read the original save file
+     * @param persistence The worker that writes the journal
+     */
+    public ScoreCard(final Game game, final Activity activity, final Persistence persistence)
     {
         super("ScoreCard", activity);
         
         //store our game reference object
         this.game = game;
         
-        //create new score
-        this.scores = new ArrayList<Score>();
+        //the journal replaces the original save file
+        this.journal = new ScoreJournal(new File(persistence.getDirectory(), JOURNAL_FILE), persistence);
+        
+        //if there is no journal yet, the scores are still in the original save file
+        final boolean migrate = !journal.exists();
+        
+        try
+        {
+            //load the scores from the journal
+            journal.open(table);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
         
         //make sure content exists before we try to load it
-        if (super.getContent().toString().trim().length() > 0)
+        if (migrate && super.getContent().toString().trim().length() > 0)
         {
             //load file with each level on a new line
             final String[] scores = super.getContent().toString().split(NEW_SCORE);
@@ -58,9 +91,12 @@ public final class ScoreCard extends Internal
                 final int size = Integer.parseInt(data[1]);
                 final long time = Long.parseLong(data[2]);
 
-                //load the score to our list
-                update(level, size, time);
+                //load the score
+                add(level, size, time);
             }
+            
+            //move every score to the journal at once, if we are closed first the journal won't exist and we move them again
+            journal.migrate(table);
         }
     }
     
@@ -105,16 +141,17 @@ public final class ScoreCard extends Internal
      */
     public Score getScore(final int level, final int difficulty)
     {
-    	//check our list to see if the specified score is better
-    	for (Score score : scores)
-    	{
-    		//if the level and difficulty match return the score
-    		if (score.getLevel() == level && score.getDifficulty() == difficulty)
-    			return score;
-    	}
-    	
-    	//score was not found
-    	return null;
+    	return table.getScore(level, difficulty);
+    }
+    
+    /**
+     * Get the completed levels
+     * @param difficulty The level difficulty
+     * @return The level indexes that have a score for the specified difficulty, this should not be modified
+     */
+    public BitSet getCompleted(final int difficulty)
+    {
+    	return table.getCompleted(difficulty);
     }
     
     /**
@@ -127,71 +164,50 @@ public final class ScoreCard extends Internal
      */
     public boolean update(final int level, final int difficulty, final long time)
     {
-    	//our score object
-    	Score score = getScore(level, difficulty);
-    	
-    	if (score == null)
-    	{
-    		//score does not exist, so add it
-    		scores.add(new Score(level, difficulty, time));
-    	}
-    	else
-    	{
-    		//if the time is less update the time
-    		if (time < score.getTime())
-    		{
-    			score.setTime(time);
-    		}
-    		else
-    		{
-    			//score was not updated
-    			return false;
-    		}
-    	}
+    	//score was not updated
+    	if (!add(level, difficulty, time))
+    		return false;
     	
-    	//save the score
-    	save();
+    	//save the score in the background
+    	journal.append(level, difficulty, time);
     	
     	//score was updated
     	return true;
     }
     
     /**
-     * Save the scores to the internal storage
+     * Add the score, or update the time if it is less than the existing
+     * @param level The specified level
+     * @param difficulty The difficulty of the level
+     * @param time The time duration
+     * @return true if the score was added or updated, false otherwise
+     */
+    private boolean add(final int level, final int difficulty, final long time)
+    {
+    	return table.add(level, difficulty, time);
+    }
+    
+    /**
+     * Save the scores to the internal storage.<br>
+     * Every score is already in the journal, so this only compacts the journal in the background.
      */
     @Override
     public void save()
     {
-        //remove all existing content
-        super.getContent().delete(0, super.getContent().length());
-        
-        for (Score score : scores)
-        {
-            //if content exists, add delimiter to separate each score
-            if (super.getContent().length() > 0)
-                super.getContent().append(NEW_SCORE);
-            
-            //write level, size, and time
-            super.getContent().append(score.getLevel());
-            super.getContent().append(SEPARATOR);
-            super.getContent().append(score.getDifficulty());
-            super.getContent().append(SEPARATOR);
-            super.getContent().append(score.getTime());
-        }
-        
-        //save the content to physical internal storage location
-        super.save();
+        if (journal != null)
+            journal.compact();
     }
     
     @Override
     public void dispose()
     {
-        super.dispose();
-        
-        if (scores != null)
+        //finish writing the journal
+        if (journal != null)
         {
-            scores.clear();
-            scores = null;
+            journal.close();
+            journal = null;
         }
+        
+        super.dispose();
     }
 }
\ No newline at end of file
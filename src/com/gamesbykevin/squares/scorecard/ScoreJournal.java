@@ -0,0 +1,442 @@
+package com.gamesbykevin.squares.scorecard;
+
+import com.gamesbykevin.squares.core.ScoreTable;
+import com.gamesbykevin.squares.storage.AtomicFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+
+/**
+ * An append only journal of best times.<br>
+ * Each new best time is a fixed size record added to the end of the file, so nothing else has to be written.
+ * Once the journal has grown too large it is compacted to 1 record per score.<br>
+ * All writing happens on the storage worker, the caller never waits on the disk.<br>
+ * <br>
+ * Record layout (big endian): int level, int difficulty, long time, int checksum of the first 16 bytes
+ * @author GOD
+ */
+public final class ScoreJournal
+{
+    /**
+     * The size of each record in bytes
+     */
+    public static final int RECORD_SIZE = 20;
+    
+    /**
+     * The journal is never compacted while it has fewer records than this
+     */
+    public static final int COMPACT_MINIMUM = 256;
+    
+    /**
+     * The journal is compacted when it has this many records for each score
+     */
+    public static final int COMPACT_RATIO = 2;
+    
+    //the journal file
+    private final File file;
+    
+    //the file written during compaction, before it replaces the journal
+    private final File compactFile;
+    
+    //the worker writing to the journal
+    private Executor executor;
+    
+    //the best time of each score, only used by the worker
+    private final Map<Long, Long> scores = new HashMap<Long, Long>();
+    
+    //the number of records in the journal, only used by the worker
+    private int records;
+    
+    //the stream we append records to, only used by the worker
+    private FileOutputStream output;
+    
+    //the record being written, only used by the worker
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    
+    //the checksum of each record, only used by the worker
+    private final CRC32 checksum = new CRC32();
+    
+    /**
+     * Create a new journal
+     * @param file The journal file
+     * @param executor The worker that writes to the journal, tasks must run 1 at a time in order
+     */
+    public ScoreJournal(final File file, final Executor executor)
+    {
+        this.file = file;
+        this.compactFile = AtomicFile.getTempFile(file);
+        this.executor = executor;
+    }
+    
+    /**
+     * Does the journal exist?
+     * @return true if the journal file exists, false otherwise
+     */
+    public boolean exists()
+    {
+        return file.exists();
+    }
+    
+    /**
+     * Read the journal.<br>
+     * If the last record was not completely written (or the checksum does not match),
+     * it and anything after it is removed from the file.<br>
+     * This needs to be called before any records are appended.
+     * @param table Object to add the best time of each score to
+     * @return The number of scores read
+     * @throws IOException
+     */
+    public int open(final ScoreTable table) throws IOException
+    {
+        //a compaction that did not finish, the journal itself is still intact
+        if (compactFile.exists() && !compactFile.delete())
+            throw new IOException("Unable to delete " + compactFile.getPath());
+        
+        //read the valid records
+        final int length = (file.exists()) ? (int)file.length() : 0;
+        final byte[] data = new byte[length];
+        
+        if (length > 0)
+        {
+            final FileInputStream input = new FileInputStream(file);
+            
+            try
+            {
+                int offset = 0;
+                
+                while (offset < length)
+                {
+                    final int read = input.read(data, offset, length - offset);
+                    
+                    if (read < 0)
+                        break;
+                    
+                    offset += read;
+                }
+            }
+            finally
+            {
+                input.close();
+            }
+        }
+        
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        
+        int count = 0;
+        
+        while ((count + 1) * RECORD_SIZE <= length)
+        {
+            final int position = count * RECORD_SIZE;
+            
+            //stop at the first damaged record
+            checksum.reset();
+            checksum.update(data, position, RECORD_SIZE - 4);
+            
+            if ((int)checksum.getValue() != buffer.getInt(position + RECORD_SIZE - 4))
+                break;
+            
+            keep(buffer.getInt(position), buffer.getInt(position + 4), buffer.getLong(position + 8));
+            count++;
+        }
+        
+        //remove the torn record so new records are appended after the last valid one
+        if (count * RECORD_SIZE < length)
+        {
+            final RandomAccessFile truncate = new RandomAccessFile(file, "rw");
+            
+            try
+            {
+                truncate.setLength(count * RECORD_SIZE);
+                truncate.getFD().sync();
+            }
+            finally
+            {
+                truncate.close();
+            }
+        }
+        
+        this.records = count;
+        
+        //add the scores we read
+        for (Map.Entry<Long, Long> entry : scores.entrySet())
+        {
+            table.add(getLevel(entry.getKey()), getDifficulty(entry.getKey()), entry.getValue());
+        }
+        
+        return scores.size();
+    }
+    
+    /**
+     * Add the new best time to the journal in the background
+     * @param level The level index
+     * @param difficulty The difficulty of the level
+     * @param time The time duration
+     */
+    public void append(final int level, final int difficulty, final long time)
+    {
+        submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    write(level, difficulty, time);
+                }
+                catch (IOException e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Write every score of the table to the journal in the background, in a single task.<br>
+     * The journal is replaced all at once, so if the app is closed before the task finishes
+     * the journal does not exist yet and the scores can be moved to it again.
+     * @param table The scores to write, they are copied before this returns
+     */
+    public void migrate(final ScoreTable table)
+    {
+        //count the scores
+        int count = 0;
+        
+        for (int difficulty = 0; difficulty < table.getDifficulties(); difficulty++)
+        {
+            count += table.getCompleted(difficulty).cardinality();
+        }
+        
+        //copy the scores now, the table is not used by the worker
+        final int[] levels = new int[count];
+        final int[] difficulties = new int[count];
+        final long[] times = new long[count];
+        
+        int index = 0;
+        
+        for (int difficulty = 0; difficulty < table.getDifficulties(); difficulty++)
+        {
+            final BitSet completed = table.getCompleted(difficulty);
+            
+            for (int level = completed.nextSetBit(0); level >= 0; level = completed.nextSetBit(level + 1))
+            {
+                levels[index] = level;
+                difficulties[index] = difficulty;
+                times[index] = table.getScore(level, difficulty).getTime();
+                index++;
+            }
+        }
+        
+        submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int index = 0; index < levels.length; index++)
+                {
+                    keep(levels[index], difficulties[index], times[index]);
+                }
+                
+                try
+                {
+                    rewrite();
+                }
+                catch (IOException e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Rewrite the journal with 1 record per score in the background
+     */
+    public void compact()
+    {
+        submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    rewrite();
+                }
+                catch (IOException e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Give the task to the worker
+     * @param task The task
+     */
+    private synchronized void submit(final Runnable task)
+    {
+        if (executor != null)
+            executor.execute(task);
+    }
+    
+    /**
+     * Get the key of the score
+     * @param level The level index
+     * @param difficulty The difficulty of the level
+     * @return The key combining the level and difficulty
+     */
+    private static Long getKey(final int level, final int difficulty)
+    {
+        return Long.valueOf(((long)difficulty << 32) | (level & 0xFFFFFFFFL));
+    }
+    
+    /**
+     * Get the level
+     * @param key The key of the score
+     * @return The level index
+     */
+    private static int getLevel(final long key)
+    {
+        return (int)key;
+    }
+    
+    /**
+     * Get the difficulty
+     * @param key The key of the score
+     * @return The difficulty of the level
+     */
+    private static int getDifficulty(final long key)
+    {
+        return (int)(key >>> 32);
+    }
+    
+    /**
+     * Keep the time if it is the best time of the score
+     * @param level The level index
+     * @param difficulty The difficulty of the level
+     * @param time The time duration
+     */
+    private void keep(final int level, final int difficulty, final long time)
+    {
+        final Long key = getKey(level, difficulty);
+        final Long existing = scores.get(key);
+        
+        if (existing == null || time < existing.longValue())
+            scores.put(key, Long.valueOf(time));
+    }
+    
+    /**
+     * Create the record
+     * @param level The level index
+     * @param difficulty The difficulty of the level
+     * @param time The time duration
+     * @return The record containing the checksum
+     */
+    private byte[] getRecord(final int level, final int difficulty, final long time)
+    {
+        record.clear();
+        record.putInt(level);
+        record.putInt(difficulty);
+        record.putLong(time);
+        
+        checksum.reset();
+        checksum.update(record.array(), 0, RECORD_SIZE - 4);
+        
+        record.putInt((int)checksum.getValue());
+        
+        return record.array();
+    }
+    
+    /**
+     * Append the record, compacting the journal if it has grown too large
+     * @param level The level index
+     * @param difficulty The difficulty of the level
+     * @param time The time duration
+     * @throws IOException
+     */
+    private void write(final int level, final int difficulty, final long time) throws IOException
+    {
+        keep(level, difficulty, time);
+        
+        if (output == null)
+            output = new FileOutputStream(file, true);
+        
+        output.write(getRecord(level, difficulty, time));
+        output.getFD().sync();
+        records++;
+        
+        if (records >= COMPACT_MINIMUM && records >= scores.size() * COMPACT_RATIO)
+            rewrite();
+    }
+    
+    /**
+     * Write every score to a new file and replace the journal with it
+     * @throws IOException
+     */
+    private void rewrite() throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(scores.size() * RECORD_SIZE);
+        
+        for (Map.Entry<Long, Long> entry : scores.entrySet())
+        {
+            bytes.write(getRecord(getLevel(entry.getKey()), getDifficulty(entry.getKey()), entry.getValue()), 0, RECORD_SIZE);
+        }
+        
+        //stop appending to the old journal
+        if (output != null)
+        {
+            output.close();
+            output = null;
+        }
+        
+        //the journal is replaced all at once
+        AtomicFile.write(file, bytes.toByteArray());
+        
+        records = scores.size();
+    }
+    
+    /**
+     * Close the journal once any pending records are written.<br>
+     * Nothing else can be written after this.
+     */
+    public void close()
+    {
+        //close the stream once everything else is written
+        submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    if (output != null)
+                    {
+                        output.close();
+                        output = null;
+                    }
+                }
+                catch (IOException e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        });
+        
+        synchronized (this)
+        {
+            executor = null;
+        }
+    }
+}
\ No newline at end of file
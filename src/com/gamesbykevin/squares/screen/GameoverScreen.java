@@ -14,6 +14,7 @@ import com.gamesbykevin.androidframework.resources.Images;
 import com.gamesbykevin.androidframework.screen.Screen;
 import com.gamesbykevin.squares.MainActivity;
 import com.gamesbykevin.squares.assets.Assets;
+import com.gamesbykevin.squares.game.Game;
 import com.gamesbykevin.squares.panel.GamePanel;
 
 /**
@@ -211,8 +212,8 @@ public class GameoverScreen implements Screen, Disposable
 	        			//mark that we have not made a selection
 	        			screen.getScreenGame().getGame().getLevelSelect().setSelection(false);
 	        			
-	                    //move back to the game
-	                    screen.setState(MainScreen.State.Running);
+	                    //move back to the game, endless mode has no level select so go to the menu instead
+	                    screen.setState((screen.getScreenGame().getGame().getMode() == Game.Mode.Endless) ? MainScreen.State.Ready : MainScreen.State.Running);
 	                    
 	                    //play sound effect
 	                    Audio.play(Assets.AudioMenuKey.Selection);
@@ -222,13 +223,8 @@ public class GameoverScreen implements Screen, Disposable
         		
 	        		case INDEX_BUTTON_NEW:
 	        			
-	                    //move to the next level
-	                    screen.getScreenGame().getGame().getLevelSelect().setLevelIndex(
-	                    	screen.getScreenGame().getGame().getLevelSelect().getLevelIndex() + 1
-	                    );
-	                    
-	                    //reset with the same settings
-	                    screen.getScreenGame().getGame().reset();
+	                    //move to the next level with the same settings
+	                    screen.getScreenGame().getGame().next();
 	                    
 	                    //move back to the game
 	                    screen.setState(MainScreen.State.Running);
@@ -297,6 +293,11 @@ public class GameoverScreen implements Screen, Disposable
             	//flag true
                 setDisplay(true);
             }
+            else
+            {
+            	//wake up again when it is time to display the menu
+            	screen.getPanel().requestRender(DELAY_MENU_DISPLAY - (System.currentTimeMillis() - time));
+            }
         }
     }
     
@@ -11,7 +11,10 @@ import com.gamesbykevin.androidframework.resources.Disposable;
 import com.gamesbykevin.androidframework.resources.Images;
 import com.gamesbykevin.androidframework.screen.Screen;
 import com.gamesbykevin.squares.assets.Assets;
+import com.gamesbykevin.squares.board.Board;
+import com.gamesbykevin.squares.metrics.PerformanceOverlay;
 import com.gamesbykevin.squares.panel.GamePanel;
+import com.gamesbykevin.squares.thread.MainThread;
 
 import java.util.HashMap;
 
@@ -76,6 +79,17 @@ public final class MainScreen implements Screen, Disposable
      */
     public static final int ALPHA_DARK = 175;
     
+    /**
+     * How often the performance overlay is refreshed when nothing else changes (milliseconds)
+     */
+    private static final long OVERLAY_REFRESH = 1000L;
+    
+    //the performance overlay
+    private final PerformanceOverlay overlay = new PerformanceOverlay();
+    
+    //is the performance overlay displayed
+    private boolean overlayEnabled = MainThread.DEBUG;
+    
     /**
      * Create our main screen
      * @param panel The reference to our game panel
@@ -136,6 +150,27 @@ public final class MainScreen implements Screen, Disposable
         return this.state;
     }
     
+    /**
+     * Display the performance overlay?
+     * @param overlayEnabled true to draw the frame measurements on top of every state, false otherwise
+     */
+    public void setOverlayEnabled(final boolean overlayEnabled)
+    {
+        this.overlayEnabled = overlayEnabled;
+        
+        //the overlay needs to be drawn or removed
+        getPanel().requestRender();
+    }
+    
+    /**
+     * Is the performance overlay displayed?
+     * @return true = yes, false = no
+     */
+    public boolean isOverlayEnabled()
+    {
+        return this.overlayEnabled;
+    }
+    
     public Screen getScreen(final State state)
     {
         return screens.get(state);
@@ -197,6 +232,18 @@ public final class MainScreen implements Screen, Disposable
         
         //assign the state
         this.state = state;
+        
+        //the new screen needs to be displayed
+        getPanel().requestRender();
+    }
+    
+    /**
+     * Is the player on the board?
+     * @return true if the game is running and a level is selected, false otherwise
+     */
+    public boolean isInteractive()
+    {
+        return (getState() == State.Running && getScreenGame().getGame() != null && getScreenGame().getGame().hasSelection());
     }
     
     public void render(final Canvas canvas) throws Exception
@@ -267,6 +314,24 @@ public final class MainScreen implements Screen, Disposable
                 default:
                     throw new Exception("Undefined state " + state.toString());
             }
+            
+            //draw the performance overlay on top of everything
+            if (isOverlayEnabled())
+            {
+                final Board board = (getScreenGame().getGame() != null) ? getScreenGame().getGame().getBoard() : null;
+                
+                if (board != null)
+                {
+                    overlay.render(canvas, getPanel().getMetrics(), board.getCols(), board.getRows(), board.getMismatches());
+                }
+                else
+                {
+                    overlay.render(canvas, getPanel().getMetrics(), 0, 0, 0);
+                }
+                
+                //keep the heap and collections current while nothing else is changing
+                getPanel().requestRender(OVERLAY_REFRESH);
+            }
         }
     }
     
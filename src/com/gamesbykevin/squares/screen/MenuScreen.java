@@ -341,6 +341,9 @@ public class MenuScreen implements Screen, Disposable
             
             //we notified the user
             notify = true;
+            
+            //now that the splash screen is displayed we need another update to start the game
+            screen.getPanel().requestRender();
         }
         else
         {
@@ -117,7 +117,7 @@ public class OptionsScreen implements Screen, Disposable
         }
         
         //create our settings object last, which will load the previous settings
-        this.settings = new Settings(this, screen.getPanel().getActivity());
+        this.settings = new Settings(this, screen.getPanel().getActivity(), screen.getPanel().getPersistence());
     }
     
     /**
@@ -0,0 +1,42 @@
+package com.gamesbykevin.squares.solver;
+
+/**
+ * A solver that backtracks first, and only hands the puzzle to the {@link SatSolver} if backtracking needs too many guesses.<br>
+ * Most boards are solved by the {@link Solver} with few or no guesses, several times quicker than building the clauses.
+ * Some boards make the backtracking repeat the same bad guess deep in the search, and clause learning avoids that.<br>
+ * The backends are reused, so a single solver is not thread safe.
+ * @author GOD
+ */
+public final class FallbackSolver implements ISolver
+{
+    /**
+     * The most guesses made by backtracking before we start over with the {@link SatSolver}.<br>
+     * The bundled and generated levels take less than 1,000 guesses, this many is about as long as the clauses take to solve.
+     */
+    public static final long GUESS_BUDGET = 5000L;
+    
+    //the backends
+    private final Solver backtrack;
+    private final SatSolver sat;
+    
+    /**
+     * Create a new solver
+     */
+    public FallbackSolver()
+    {
+        this.backtrack = new Solver(GUESS_BUDGET);
+        this.sat = new SatSolver();
+    }
+    
+    @Override
+    public Result solve(final Puzzle puzzle, final int limit)
+    {
+        final Result result = backtrack.solve(puzzle, limit);
+        
+        //the backtracking gave up, so we don't know the count yet
+        if (result.isAbandoned())
+            return sat.solve(puzzle, limit);
+        
+        return result;
+    }
+}
\ No newline at end of file
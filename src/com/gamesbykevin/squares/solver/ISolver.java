@@ -0,0 +1,16 @@
+package com.gamesbykevin.squares.solver;
+
+/**
+ * Each solver backend will need to implement this
+ * @author GOD
+ */
+public interface ISolver
+{
+    /**
+     * Search for solutions of the puzzle
+     * @param puzzle The puzzle we want to solve
+     * @param limit Stop searching once this many solutions are found, use 2 to check if a solution is unique
+     * @return The result containing the number of solutions found and the first solution
+     */
+    public Result solve(final Puzzle puzzle, final int limit);
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.gamesbykevin.squares.solver;
+
+import com.gamesbykevin.squares.core.BoardRules;
+
+/**
+ * The information a solver is given: the board dimensions, the range of each peg and the 2x2 block clues
+ * @author GOD
+ */
+public final class Puzzle
+{
+    /**
+     * The value of a peg that has not been given
+     */
+    public static final int UNKNOWN = -1;
+    
+    //store the dimensions
+    private final int cols, rows;
+    
+    //the number of values each peg can have
+    private final int range;
+    
+    //the total of each 2x2 block
+    private final int[][] clues;
+    
+    //the pegs that are already known, if any
+    private int[][] givens;
+    
+    /**
+     * Create a new puzzle
+     * @param cols Column dimension of the board
+     * @param rows Row dimension of the board
+     * @param range The number of values each peg can have
+     * @param clues The total of each 2x2 block, [rows - 1][cols - 1]
+     */
+    public Puzzle(final int cols, final int rows, final int range, final int[][] clues)
+    {
+        if (cols < 2 || rows < 2)
+            throw new IllegalArgumentException("Board must be at least 2x2 - " + cols + "x" + rows);
+        if (!BoardRules.isValidRange(range))
+            throw new IllegalArgumentException("Invalid range - " + range);
+        if (clues.length != rows - 1 || clues[0].length != cols - 1)
+            throw new IllegalArgumentException("Clues do not fit the board");
+        
+        this.cols = cols;
+        this.rows = rows;
+        this.range = range;
+        this.clues = clues;
+    }
+    
+    /**
+     * Create a puzzle from a solved key
+     * @param key The key containing the value of every peg, [rows][cols]
+     * @param range The number of values each peg can have
+     * @return The puzzle with the clues of the key
+     */
+    public static Puzzle fromSolution(final int[][] key, final int range)
+    {
+        final int rows = key.length;
+        final int cols = key[0].length;
+        
+        final int[][] clues = new int[rows - 1][cols - 1];
+        
+        for (int row = 0; row < rows - 1; row++)
+        {
+            for (int col = 0; col < cols - 1; col++)
+            {
+                clues[row][col] = BoardRules.getCount(key, col, row);
+            }
+        }
+        
+        return new Puzzle(cols, rows, range, clues);
+    }
+    
+    /**
+     * Get the columns
+     * @return Column dimension of the board
+     */
+    public int getCols()
+    {
+        return this.cols;
+    }
+    
+    /**
+     * Get the rows
+     * @return Row dimension of the board
+     */
+    public int getRows()
+    {
+        return this.rows;
+    }
+    
+    /**
+     * Get the range
+     * @return The number of values each peg can have
+     */
+    public int getRange()
+    {
+        return this.range;
+    }
+    
+    /**
+     * Get the clue
+     * @param col Column of the block
+     * @param row Row of the block
+     * @return The total of the 4 corners of the specified block
+     */
+    public int getClue(final int col, final int row)
+    {
+        return this.clues[row][col];
+    }
+    
+    /**
+     * Assign the pegs that are already known
+     * @param givens The value of each known peg, or {@link #UNKNOWN}, [rows][cols]. May be null
+     */
+    public void setGivens(final int[][] givens)
+    {
+        if (givens != null && (givens.length != rows || givens[0].length != cols))
+            throw new IllegalArgumentException("Givens do not fit the board");
+        
+        this.givens = givens;
+    }
+    
+    /**
+     * Get the given value
+     * @param col Column
+     * @param row Row
+     * @return The known value of the peg, or {@link #UNKNOWN} if it has to be solved
+     */
+    public int getGiven(final int col, final int row)
+    {
+        return (givens == null) ? UNKNOWN : givens[row][col];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.gamesbykevin.squares.solver;
+
+/**
+ * The outcome of solving a puzzle
+ * @author GOD
+ */
+public final class Result
+{
+    //the number of solutions found
+    private int count;
+    
+    //the most solutions we searched for
+    private final int limit;
+    
+    //the first solution found
+    private int[][] solution;
+    
+    //did the solver give up before the search was done
+    private boolean abandoned = false;
+    
+    protected Result(final int limit)
+    {
+        if (limit < 1)
+            throw new IllegalArgumentException("Invalid limit - " + limit);
+        
+        this.limit = limit;
+    }
+    
+    /**
+     * Get the count
+     * @return The number of solutions found, this will not exceed the limit
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+    
+    /**
+     * Get the limit
+     * @return The most solutions we searched for
+     */
+    public int getLimit()
+    {
+        return this.limit;
+    }
+    
+    /**
+     * Did we find enough solutions to stop searching?
+     * @return true if the count has reached the limit, false otherwise
+     */
+    public boolean isComplete()
+    {
+        return (getCount() >= getLimit());
+    }
+    
+    /**
+     * Is there a solution?
+     * @return true if at least 1 solution was found, false otherwise
+     */
+    public boolean isSolved()
+    {
+        return (getCount() > 0);
+    }
+    
+    /**
+     * Is the solution unique?<br>
+     * This is only known if the limit was at least 2
+     * @return true if exactly 1 solution exists, false otherwise
+     */
+    public boolean isUnique()
+    {
+        return (getCount() == 1 && getLimit() > 1);
+    }
+    
+    /**
+     * Did the solver give up before the search was done?<br>
+     * If so the count is only the solutions found before it gave up, there could be more.
+     * @return true if the search was abandoned, false otherwise
+     */
+    public boolean isAbandoned()
+    {
+        return this.abandoned;
+    }
+    
+    /**
+     * Flag that the solver gave up before the search was done
+     */
+    protected void abandon()
+    {
+        this.abandoned = true;
+    }
+    
+    /**
+     * Get the solution
+     * @return The value of every peg of the first solution found [rows][cols], null if there is no solution
+     */
+    public int[][] getSolution()
+    {
+        return this.solution;
+    }
+    
+    /**
+     * Record a solution that was found.<br>
+     * Only the first solution is kept.
+     * @param values The value of each peg, stored row by row
+     * @param cols Column dimension of the board
+     * @param rows Row dimension of the board
+     */
+    protected void add(final int[] values, final int cols, final int rows)
+    {
+        if (this.solution == null)
+        {
+            this.solution = new int[rows][cols];
+            
+            for (int row = 0; row < rows; row++)
+            {
+                for (int col = 0; col < cols; col++)
+                {
+                    this.solution[row][col] = values[(row * cols) + col];
+                }
+            }
+        }
+        
+        this.count++;
+    }
+    
+    /**
+     * Record solutions that were counted without being listed.<br>
+     * The count will not go past the limit.
+     * @param solutions The number of solutions counted
+     */
+    protected void addCount(final long solutions)
+    {
+        this.count += (int)Math.min(solutions, getLimit() - getCount());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,864 @@
+package com.gamesbykevin.squares.solver;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A conflict driven clause learning (CDCL) satisfiability engine.<br>
+ * Variables are numbered from 1 and a literal is a variable (true) or its negative (false), the same as the DIMACS format.
+ * Each clause watches 2 of its literals, and is only visited when one of them becomes false.
+ * A conflict is analyzed back to the first unique implication point, the learned clause is added and the search jumps back
+ * to the level where the clause asserts a new value. The variables that were part of recent conflicts are decided first,
+ * the search restarts on the Luby sequence, and half the learned clauses that are least useful are deleted from time to time.<br>
+ * Clauses can be added between calls to {@link #solve()}, so a model can be blocked to look for the next one.
+ * A single engine is not thread safe.
+ * @author GOD
+ */
+public final class SatEngine
+{
+    /**
+     * The number of conflicts in a single unit of the restart sequence
+     */
+    private static final int RESTART_BASE = 100;
+    
+    /**
+     * How much the activity of the variables decays after each conflict
+     */
+    private static final double VARIABLE_DECAY = 0.95;
+    
+    /**
+     * How much the activity of the learned clauses decays after each conflict
+     */
+    private static final double CLAUSE_DECAY = 0.999;
+    
+    /**
+     * The learned clauses that are always kept, the number of decision levels in the clause
+     */
+    private static final int KEEP_LBD = 2;
+    
+    //the value of a literal
+    private static final byte UNASSIGNED = 0, TRUE = 1, FALSE = -1;
+    
+    /**
+     * A clause, the first 2 literals are watched
+     */
+    private static final class Clause
+    {
+        //the literals (internal encoding)
+        private final int[] literals;
+        
+        //was this clause learned from a conflict
+        private final boolean learnt;
+        
+        //the number of decision levels in the clause when it was learned, fewer is better
+        private int lbd;
+        
+        //how often the clause was part of a conflict
+        private double activity;
+        
+        //the clause has been deleted and will be removed from the watches when it is found
+        private boolean deleted;
+        
+        //where the last search for a new literal to watch stopped, so long clauses are not searched from the start each time
+        private int search = 2;
+        
+        private Clause(final int[] literals, final boolean learnt)
+        {
+            this.literals = literals;
+            this.learnt = learnt;
+        }
+    }
+    
+    //the number of variables
+    private final int vars;
+    
+    //is the formula still satisfiable as far as we know
+    private boolean ok = true;
+    
+    //the value of each variable
+    private final byte[] assigns;
+    
+    //the decision level and the clause that implied each variable
+    private final int[] level;
+    private final Clause[] reason;
+    
+    //the previous value of each variable, used when it is decided again
+    private final boolean[] polarity;
+    
+    //the clauses watching each literal, these are visited when the literal becomes false
+    private final Clause[][] watches;
+    private final int[] watchCount;
+    
+    //the literals in the order they were assigned
+    private final int[] trail;
+    private int trailSize, queueHead;
+    
+    //the start of each decision level on the trail
+    private int[] levels = new int[16];
+    private int levelCount;
+    
+    //the original and learned clauses
+    private Clause[] clauses = new Clause[16], learnts = new Clause[16];
+    private int clauseCount, learntCount;
+    
+    //how often each variable was part of a conflict, and the variables ordered by it
+    private final double[] activity;
+    private double variableIncrement = 1, clauseIncrement = 1;
+    private final int[] heap, heapIndex;
+    private int heapSize;
+    
+    //used during conflict analysis
+    private final boolean[] seen;
+    private int[] learnt;
+    private final int[] levelStamp;
+    private int stamp;
+    
+    //the statistics
+    private long conflicts, decisions, propagations;
+    
+    //the learned clauses allowed before the least useful are deleted
+    private double maxLearnts;
+    
+    /**
+     * Create a new engine
+     * @param vars The number of variables, numbered from 1
+     */
+    public SatEngine(final int vars)
+    {
+        if (vars < 1)
+            throw new IllegalArgumentException("Invalid number of variables - " + vars);
+        
+        this.vars = vars;
+        this.assigns = new byte[vars];
+        this.level = new int[vars];
+        this.reason = new Clause[vars];
+        this.polarity = new boolean[vars];
+        this.watches = new Clause[vars * 2][];
+        this.watchCount = new int[vars * 2];
+        this.trail = new int[vars];
+        this.activity = new double[vars];
+        this.heap = new int[vars];
+        this.heapIndex = new int[vars];
+        this.seen = new boolean[vars];
+        this.learnt = new int[16];
+        this.levelStamp = new int[vars + 1];
+        
+        for (int index = 0; index < watches.length; index++)
+        {
+            watches[index] = new Clause[4];
+        }
+        
+        //every variable can be decided
+        for (int var = 0; var < vars; var++)
+        {
+            heapIndex[var] = -1;
+            insert(var);
+        }
+    }
+    
+    /**
+     * Get the number of variables
+     * @return The number of variables, numbered from 1
+     */
+    public int getVariables()
+    {
+        return this.vars;
+    }
+    
+    public long getConflicts()
+    {
+        return this.conflicts;
+    }
+    
+    public long getDecisions()
+    {
+        return this.decisions;
+    }
+    
+    public long getPropagations()
+    {
+        return this.propagations;
+    }
+    
+    /**
+     * Convert the literal to the internal encoding
+     * @param literal The variable, negative if false
+     * @return (var * 2) for true, (var * 2) + 1 for false, with variables numbered from 0
+     */
+    private int toInternal(final int literal)
+    {
+        final int var = Math.abs(literal) - 1;
+        
+        if (literal == 0 || var >= vars)
+            throw new IllegalArgumentException("Invalid literal - " + literal);
+        
+        return (var * 2) + ((literal < 0) ? 1 : 0);
+    }
+    
+    /**
+     * Get the value of the literal
+     * @param lit The literal (internal encoding)
+     * @return {@link #TRUE}, {@link #FALSE} or {@link #UNASSIGNED}
+     */
+    private byte getValue(final int lit)
+    {
+        final byte value = assigns[lit >> 1];
+        
+        return ((lit & 1) == 0) ? value : (byte)-value;
+    }
+    
+    /**
+     * Get the value of the variable in the model found
+     * @param var The variable, numbered from 1
+     * @return true if the variable is true, false otherwise
+     */
+    public boolean isTrue(final int var)
+    {
+        return (assigns[var - 1] == TRUE);
+    }
+    
+    /**
+     * Add a clause.<br>
+     * Any model found before is discarded.
+     * @param literals The literals, at least 1 has to be true. An empty clause can not be satisfied
+     * @return false if the formula is now known to be unsatisfiable, true otherwise
+     */
+    public boolean addClause(final int... literals)
+    {
+        if (!ok)
+            return false;
+        
+        cancel(0);
+        
+        final int[] lits = new int[literals.length];
+        int size = 0;
+        
+        for (int index = 0; index < literals.length; index++)
+        {
+            final int lit = toInternal(literals[index]);
+            final byte value = getValue(lit);
+            
+            //the clause is already satisfied
+            if (value == TRUE)
+                return true;
+            
+            //a literal that is already false is not needed
+            if (value == FALSE)
+                continue;
+            
+            boolean duplicate = false;
+            
+            for (int other = 0; other < size; other++)
+            {
+                //the clause is always satisfied
+                if (lits[other] == (lit ^ 1))
+                    return true;
+                
+                if (lits[other] == lit)
+                    duplicate = true;
+            }
+            
+            if (!duplicate)
+                lits[size++] = lit;
+        }
+        
+        if (size == 0)
+        {
+            ok = false;
+        }
+        else if (size == 1)
+        {
+            assign(lits[0], null);
+            ok = (propagate() == null);
+        }
+        else
+        {
+            final Clause clause = new Clause(Arrays.copyOf(lits, size), false);
+            attach(clause);
+            
+            if (clauseCount == clauses.length)
+                clauses = Arrays.copyOf(clauses, clauseCount * 2);
+            
+            clauses[clauseCount++] = clause;
+        }
+        
+        return ok;
+    }
+    
+    /**
+     * Search for a model
+     * @return true if every clause can be satisfied, false otherwise
+     */
+    public boolean solve()
+    {
+        if (!ok)
+            return false;
+        
+        cancel(0);
+        
+        maxLearnts = Math.max(clauseCount / 3.0, 1000);
+        
+        int restart = 1;
+        long limit = RESTART_BASE * luby(restart);
+        long count = 0;
+        
+        while (true)
+        {
+            final Clause conflict = propagate();
+            
+            if (conflict != null)
+            {
+                conflicts++;
+                count++;
+                
+                //a conflict without any decisions can not be undone
+                if (levelCount == 0)
+                {
+                    ok = false;
+                    return false;
+                }
+                
+                final int size = analyze(conflict);
+                
+                cancel(getBacktrackLevel(size));
+                
+                if (size == 1)
+                {
+                    assign(learnt[0], null);
+                }
+                else
+                {
+                    final Clause clause = new Clause(Arrays.copyOf(learnt, size), true);
+                    clause.lbd = getLbd(clause.literals);
+                    attach(clause);
+                    bump(clause);
+                    
+                    if (learntCount == learnts.length)
+                        learnts = Arrays.copyOf(learnts, learntCount * 2);
+                    
+                    learnts[learntCount++] = clause;
+                    assign(learnt[0], clause);
+                }
+                
+                variableIncrement /= VARIABLE_DECAY;
+                clauseIncrement /= CLAUSE_DECAY;
+            }
+            else
+            {
+                //start over from the top, keeping what we learned
+                if (count >= limit)
+                {
+                    cancel(0);
+                    restart++;
+                    limit = RESTART_BASE * luby(restart);
+                    count = 0;
+                }
+                
+                if (learntCount - trailSize >= maxLearnts)
+                {
+                    reduce();
+                    maxLearnts *= 1.1;
+                }
+                
+                final int var = getNextVariable();
+                
+                //every variable has a value, we found a model
+                if (var < 0)
+                    return true;
+                
+                decisions++;
+                
+                if (levelCount == levels.length)
+                    levels = Arrays.copyOf(levels, levelCount * 2);
+                
+                levels[levelCount++] = trailSize;
+                
+                assign((var * 2) + (polarity[var] ? 0 : 1), null);
+            }
+        }
+    }
+    
+    /**
+     * Watch the first 2 literals of the clause
+     * @param clause The clause
+     */
+    private void attach(final Clause clause)
+    {
+        watch(clause.literals[0], clause);
+        watch(clause.literals[1], clause);
+    }
+    
+    /**
+     * Add the clause to the watches of the literal
+     * @param lit The literal (internal encoding)
+     * @param clause The clause
+     */
+    private void watch(final int lit, final Clause clause)
+    {
+        if (watchCount[lit] == watches[lit].length)
+            watches[lit] = Arrays.copyOf(watches[lit], watchCount[lit] * 2);
+        
+        watches[lit][watchCount[lit]++] = clause;
+    }
+    
+    /**
+     * Assign the literal to be true
+     * @param lit The literal (internal encoding)
+     * @param from The clause that implied the literal, null if it was decided
+     */
+    private void assign(final int lit, final Clause from)
+    {
+        final int var = lit >> 1;
+        
+        assigns[var] = ((lit & 1) == 0) ? TRUE : FALSE;
+        level[var] = levelCount;
+        reason[var] = from;
+        trail[trailSize++] = lit;
+    }
+    
+    /**
+     * Assign every literal that is implied by the clauses
+     * @return The clause that can't be satisfied, or null if there is no conflict
+     */
+    private Clause propagate()
+    {
+        while (queueHead < trailSize)
+        {
+            //the literal that is now false
+            final int falseLit = trail[queueHead++] ^ 1;
+            final Clause[] list = watches[falseLit];
+            final int size = watchCount[falseLit];
+            
+            propagations++;
+            
+            int keep = 0;
+            
+            for (int index = 0; index < size; index++)
+            {
+                final Clause clause = list[index];
+                
+                //drop the deleted clauses as we find them
+                if (clause.deleted)
+                    continue;
+                
+                final int[] lits = clause.literals;
+                
+                //the false literal is always the second one
+                if (lits[0] == falseLit)
+                {
+                    lits[0] = lits[1];
+                    lits[1] = falseLit;
+                }
+                
+                //the clause is already satisfied
+                if (getValue(lits[0]) == TRUE)
+                {
+                    list[keep++] = clause;
+                    continue;
+                }
+                
+                //look for another literal to watch, starting where the last search stopped
+                boolean found = false;
+                
+                for (int count = 2; count < lits.length; count++)
+                {
+                    final int other = clause.search;
+                    
+                    clause.search = (other + 1 < lits.length) ? other + 1 : 2;
+                    
+                    if (getValue(lits[other]) != FALSE)
+                    {
+                        lits[1] = lits[other];
+                        lits[other] = falseLit;
+                        watch(lits[1], clause);
+                        found = true;
+                        break;
+                    }
+                }
+                
+                if (found)
+                    continue;
+                
+                //the clause is still watching this literal
+                list[keep++] = clause;
+                
+                if (getValue(lits[0]) == FALSE)
+                {
+                    //every literal is false, keep the rest of the watches and stop
+                    for (index++; index < size; index++)
+                    {
+                        list[keep++] = list[index];
+                    }
+                    
+                    watchCount[falseLit] = keep;
+                    queueHead = trailSize;
+                    return clause;
+                }
+                
+                //the first literal is the only one left
+                assign(lits[0], clause);
+            }
+            
+            watchCount[falseLit] = keep;
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Analyze the conflict back to the first unique implication point
+     * @param conflict The clause that can't be satisfied
+     * @return The size of the learned clause, the asserting literal is first and a literal of the backtrack level is second
+     */
+    private int analyze(Clause conflict)
+    {
+        //the first spot is for the asserting literal
+        int size = 1;
+        int pending = 0;
+        int lit = -1;
+        int index = trailSize - 1;
+        
+        do
+        {
+            if (conflict.learnt)
+                bump(conflict);
+            
+            for (int other = (lit < 0) ? 0 : 1; other < conflict.literals.length; other++)
+            {
+                final int q = conflict.literals[other];
+                final int var = q >> 1;
+                
+                if (seen[var] || level[var] == 0)
+                    continue;
+                
+                seen[var] = true;
+                bump(var);
+                
+                if (level[var] == levelCount)
+                {
+                    pending++;
+                }
+                else
+                {
+                    if (size == learnt.length)
+                        learnt = Arrays.copyOf(learnt, size * 2);
+                    
+                    learnt[size++] = q;
+                }
+            }
+            
+            //the next literal on the trail that is part of the conflict
+            while (!seen[trail[index] >> 1])
+            {
+                index--;
+            }
+            
+            lit = trail[index];
+            index--;
+            conflict = reason[lit >> 1];
+            seen[lit >> 1] = false;
+            pending--;
+        }
+        while (pending > 0);
+        
+        learnt[0] = lit ^ 1;
+        
+        //the literal with the highest level goes second, so it is watched
+        int best = 1;
+        
+        for (int other = 1; other < size; other++)
+        {
+            seen[learnt[other] >> 1] = false;
+            
+            if (level[learnt[other] >> 1] > level[learnt[best] >> 1])
+                best = other;
+        }
+        
+        if (size > 1)
+        {
+            final int tmp = learnt[1];
+            learnt[1] = learnt[best];
+            learnt[best] = tmp;
+        }
+        
+        return size;
+    }
+    
+    /**
+     * Get the level to jump back to
+     * @param size The size of the learned clause
+     * @return The level of the second literal of the learned clause, or 0 if the clause is a single literal
+     */
+    private int getBacktrackLevel(final int size)
+    {
+        return (size == 1) ? 0 : level[learnt[1] >> 1];
+    }
+    
+    /**
+     * Get the number of different decision levels in the clause
+     * @param lits The literals (internal encoding)
+     * @return The number of decision levels
+     */
+    private int getLbd(final int[] lits)
+    {
+        stamp++;
+        
+        int count = 0;
+        
+        for (int lit : lits)
+        {
+            final int value = level[lit >> 1];
+            
+            if (levelStamp[value] != stamp)
+            {
+                levelStamp[value] = stamp;
+                count++;
+            }
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Undo every assignment above the level
+     * @param target The decision level to go back to
+     */
+    private void cancel(final int target)
+    {
+        if (levelCount <= target)
+            return;
+        
+        for (int index = trailSize - 1; index >= levels[target]; index--)
+        {
+            final int var = trail[index] >> 1;
+            
+            polarity[var] = (assigns[var] == TRUE);
+            assigns[var] = UNASSIGNED;
+            reason[var] = null;
+            
+            if (heapIndex[var] < 0)
+                insert(var);
+        }
+        
+        trailSize = levels[target];
+        queueHead = trailSize;
+        levelCount = target;
+    }
+    
+    /**
+     * Delete half of the learned clauses, the ones with the most decision levels and the least activity go first.<br>
+     * Clauses that imply a current assignment and clauses with very few decision levels are kept.
+     */
+    private void reduce()
+    {
+        Arrays.sort(learnts, 0, learntCount, new Comparator<Clause>()
+        {
+            @Override
+            public int compare(final Clause a, final Clause b)
+            {
+                if (a.lbd != b.lbd)
+                    return (a.lbd > b.lbd) ? -1 : 1;
+                
+                return Double.compare(a.activity, b.activity);
+            }
+        });
+        
+        final int half = learntCount / 2;
+        int keep = 0;
+        
+        for (int index = 0; index < learntCount; index++)
+        {
+            final Clause clause = learnts[index];
+            
+            if (index < half && clause.lbd > KEEP_LBD && !isLocked(clause))
+            {
+                clause.deleted = true;
+            }
+            else
+            {
+                learnts[keep++] = clause;
+            }
+        }
+        
+        Arrays.fill(learnts, keep, learntCount, null);
+        learntCount = keep;
+    }
+    
+    /**
+     * Is the clause the reason for a current assignment?
+     * @param clause The clause
+     * @return true if the clause implied its first literal, false otherwise
+     */
+    private boolean isLocked(final Clause clause)
+    {
+        final int var = clause.literals[0] >> 1;
+        
+        return (reason[var] == clause && assigns[var] != UNASSIGNED);
+    }
+    
+    /**
+     * Increase the activity of the clause
+     * @param clause The learned clause
+     */
+    private void bump(final Clause clause)
+    {
+        clause.activity += clauseIncrement;
+        
+        //keep the numbers in range
+        if (clause.activity > 1e20)
+        {
+            for (int index = 0; index < learntCount; index++)
+            {
+                learnts[index].activity *= 1e-20;
+            }
+            
+            clause.activity *= 1e-20;
+            clauseIncrement *= 1e-20;
+        }
+    }
+    
+    /**
+     * Increase the activity of the variable
+     * @param var The variable (numbered from 0)
+     */
+    private void bump(final int var)
+    {
+        activity[var] += variableIncrement;
+        
+        //keep the numbers in range
+        if (activity[var] > 1e100)
+        {
+            for (int index = 0; index < vars; index++)
+            {
+                activity[index] *= 1e-100;
+            }
+            
+            variableIncrement *= 1e-100;
+        }
+        
+        if (heapIndex[var] >= 0)
+            up(heapIndex[var]);
+    }
+    
+    /**
+     * Get the unassigned variable with the most activity
+     * @return The variable (numbered from 0), or -1 if every variable is assigned
+     */
+    private int getNextVariable()
+    {
+        while (heapSize > 0)
+        {
+            final int var = heap[0];
+            
+            //remove the top of the heap
+            heapSize--;
+            heapIndex[var] = -1;
+            
+            if (heapSize > 0)
+            {
+                heap[0] = heap[heapSize];
+                heapIndex[heap[0]] = 0;
+                down(0);
+            }
+            
+            if (assigns[var] == UNASSIGNED)
+                return var;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Add the variable to the heap
+     * @param var The variable (numbered from 0)
+     */
+    private void insert(final int var)
+    {
+        heap[heapSize] = var;
+        heapIndex[var] = heapSize;
+        heapSize++;
+        up(heapIndex[var]);
+    }
+    
+    /**
+     * Move the variable up the heap until its parent has more activity
+     * @param index The location in the heap
+     */
+    private void up(int index)
+    {
+        final int var = heap[index];
+        
+        while (index > 0)
+        {
+            final int parent = (index - 1) >> 1;
+            
+            if (activity[heap[parent]] >= activity[var])
+                break;
+            
+            heap[index] = heap[parent];
+            heapIndex[heap[index]] = index;
+            index = parent;
+        }
+        
+        heap[index] = var;
+        heapIndex[var] = index;
+    }
+    
+    /**
+     * Move the variable down the heap until its children have less activity
+     * @param index The location in the heap
+     */
+    private void down(int index)
+    {
+        final int var = heap[index];
+        
+        while (true)
+        {
+            int child = (index * 2) + 1;
+            
+            if (child >= heapSize)
+                break;
+            
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]])
+                child++;
+            
+            if (activity[heap[child]] <= activity[var])
+                break;
+            
+            heap[index] = heap[child];
+            heapIndex[heap[index]] = index;
+            index = child;
+        }
+        
+        heap[index] = var;
+        heapIndex[var] = index;
+    }
+    
+    /**
+     * Get the value of the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8...
+     * @param index The position in the sequence, starting at 1
+     * @return The value
+     */
+    private static long luby(final int index)
+    {
+        int size = 1;
+        int sequence = 0;
+        int x = index - 1;
+        
+        //find the finite sub sequence that contains the index
+        while (size < x + 1)
+        {
+            sequence++;
+            size = (size * 2) + 1;
+        }
+        
+        while (size - 1 != x)
+        {
+            size = (size - 1) >> 1;
+            sequence--;
+            x = x % size;
+        }
+        
+        return 1L << sequence;
+    }
+}
\ No newline at end of file
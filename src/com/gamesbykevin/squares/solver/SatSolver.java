@@ -0,0 +1,229 @@
+package com.gamesbykevin.squares.solver;
+
+import java.util.Arrays;
+
+/**
+ * A solver that encodes the puzzle as clauses for the {@link SatEngine}, for boards that take the backtracking too many guesses.<br>
+ * Each peg has 1 variable for each value above 0, variable v is true when the value of the peg is at least v (order encoding).
+ * So a peg with a range of 2 is a single variable, and with a range of 3 the second variable can only be true if the first one is.
+ * The clue of a block is a cardinality constraint on the values of its 4 corners, written out as clauses on the variables.
+ * For a range of 2 these are the usual clauses that any (clue + 1) pegs can't all be 1 and any (5 - clue) pegs can't all be 0.
+ * For a range of 3 each clause is a combination of values instead, so a single clause knows a peg can't be more than 2
+ * and the engine makes the same deductions as the backtracking solver without a guess.<br>
+ * Each solution found is blocked with a clause so the engine will look for another one.
+ * A new engine is created for each puzzle, so a single solver is thread safe.
+ * @author GOD
+ */
+public final class SatSolver implements ISolver
+{
+    /**
+     * Create a new solver
+     */
+    public SatSolver()
+    {
+        //the engine is created for each puzzle
+    }
+    
+    @Override
+    public Result solve(final Puzzle puzzle, final int limit)
+    {
+        final Result result = new Result(limit);
+        
+        final int cols = puzzle.getCols();
+        final int rows = puzzle.getRows();
+        
+        //the number of variables of each peg
+        final int size = puzzle.getRange() - 1;
+        
+        final SatEngine engine = new SatEngine(cols * rows * size);
+        
+        if (encode(engine, puzzle))
+        {
+            final int[] values = new int[cols * rows];
+            
+            //the clause to block the solution found, every variable that has to change for a different solution
+            final int[] block = new int[engine.getVariables()];
+            
+            while (!result.isComplete() && engine.solve())
+            {
+                for (int cell = 0; cell < values.length; cell++)
+                {
+                    values[cell] = 0;
+                    
+                    for (int value = 1; value <= size; value++)
+                    {
+                        final int var = getVariable(cell, value, size);
+                        
+                        if (engine.isTrue(var))
+                            values[cell]++;
+                        
+                        block[var - 1] = (engine.isTrue(var)) ? -var : var;
+                    }
+                }
+                
+                result.add(values, cols, rows);
+                
+                //no other solution if the solution can't be blocked
+                if (!engine.addClause(block))
+                    break;
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Add the clauses of the puzzle
+     * @param engine The engine to add the clauses to
+     * @param puzzle The puzzle we want to solve
+     * @return false if the puzzle is already known to have no solution, true otherwise
+     */
+    private static boolean encode(final SatEngine engine, final Puzzle puzzle)
+    {
+        final int cols = puzzle.getCols();
+        final int size = puzzle.getRange() - 1;
+        
+        //the value of a peg can only be at least v + 1 if it is at least v
+        for (int cell = 0; cell < cols * puzzle.getRows(); cell++)
+        {
+            for (int value = 2; value <= size; value++)
+            {
+                if (!engine.addClause(-getVariable(cell, value, size), getVariable(cell, value - 1, size)))
+                    return false;
+            }
+        }
+        
+        //the pegs that are already known
+        for (int row = 0; row < puzzle.getRows(); row++)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                final int given = puzzle.getGiven(col, row);
+                
+                if (given == Puzzle.UNKNOWN)
+                    continue;
+                
+                if (given < 0 || given > size)
+                    return false;
+                
+                for (int value = 1; value <= size; value++)
+                {
+                    final int var = getVariable((row * cols) + col, value, size);
+                    
+                    if (!engine.addClause((value <= given) ? var : -var))
+                        return false;
+                }
+            }
+        }
+        
+        //the 4 corners of a block
+        final int[] cells = new int[4];
+        
+        for (int row = 0; row < puzzle.getRows() - 1; row++)
+        {
+            for (int col = 0; col < cols - 1; col++)
+            {
+                cells[0] = (row * cols) + col;
+                cells[1] = cells[0] + 1;
+                cells[2] = cells[0] + cols;
+                cells[3] = cells[0] + cols + 1;
+                
+                if (!addExactly(engine, cells, size, puzzle.getClue(col, row)))
+                    return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Add the clauses so the values of the 4 pegs add up to the count.<br>
+     * Each clause is a combination of values, 1 for each peg. If the combination adds up to (count + 1),
+     * the pegs can't all be at least those values. If it adds up to (count - 1), the pegs can't all be at most those values.
+     * @param engine The engine to add the clauses to
+     * @param cells The 4 pegs
+     * @param size The number of variables of each peg
+     * @param count The total of the values of the pegs
+     * @return false if this can't be satisfied, true otherwise
+     */
+    private static boolean addExactly(final SatEngine engine, final int[] cells, final int size, final int count)
+    {
+        if (count < 0 || count > cells.length * size)
+            return engine.addClause();
+        
+        //the value of each peg in the combination
+        final int[] values = new int[cells.length];
+        
+        //the number of combinations
+        int combinations = 1;
+        
+        for (int index = 0; index < cells.length; index++)
+        {
+            combinations *= size + 1;
+        }
+        
+        for (int combination = 0; combination < combinations; combination++)
+        {
+            int remaining = combination, total = 0;
+            
+            for (int index = 0; index < cells.length; index++)
+            {
+                values[index] = remaining % (size + 1);
+                remaining /= (size + 1);
+                total += values[index];
+            }
+            
+            if (total == count + 1 && !engine.addClause(getClause(cells, values, size, true)))
+                return false;
+            
+            if (total == count - 1 && !engine.addClause(getClause(cells, values, size, false)))
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Get the clause for a combination of values
+     * @param cells The pegs
+     * @param values The value of each peg in the combination
+     * @param size The number of variables of each peg
+     * @param most Can the pegs not all be at least the values (true), or not all be at most the values (false)
+     * @return The literals of the clause
+     */
+    private static int[] getClause(final int[] cells, final int[] values, final int size, final boolean most)
+    {
+        final int[] literals = new int[cells.length];
+        int count = 0;
+        
+        for (int index = 0; index < cells.length; index++)
+        {
+            if (most)
+            {
+                //at least 1 peg is below its value, a value of 0 can't be
+                if (values[index] > 0)
+                    literals[count++] = -getVariable(cells[index], values[index], size);
+            }
+            else
+            {
+                //at least 1 peg is above its value, the largest value can't be
+                if (values[index] < size)
+                    literals[count++] = getVariable(cells[index], values[index] + 1, size);
+            }
+        }
+        
+        return Arrays.copyOf(literals, count);
+    }
+    
+    /**
+     * Get the variable
+     * @param cell The peg, (row * cols) + col
+     * @param value The value, from 1 to the number of variables of each peg
+     * @param size The number of variables of each peg
+     * @return The variable that is true when the value of the peg is at least the value, numbered from 1
+     */
+    private static int getVariable(final int cell, final int value, final int size)
+    {
+        return (cell * size) + value;
+    }
+}
\ No newline at end of file
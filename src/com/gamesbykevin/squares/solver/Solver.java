@@ -0,0 +1,446 @@
+package com.gamesbykevin.squares.solver;
+
+/**
+ * A solver that deduces peg values with constraint propagation and backtracks when it has to guess.<br>
+ * Every peg keeps a bit mask of the values it can still have (its domain).
+ * Each 2x2 block narrows the domains of its corners so the total of the block can still reach the clue,
+ * and any domain left with a single value is a deduced peg.<br>
+ * The arrays are reused between puzzles of the same size, so a single solver is not thread safe.
+ * @author GOD
+ */
+public final class Solver implements ISolver
+{
+    /**
+     * The most values a peg can have
+     */
+    private static final int MAX_RANGE = 3;
+    
+    /**
+     * The number of possible domains
+     */
+    private static final int DOMAINS = 1 << MAX_RANGE;
+    
+    //the smallest value of each domain
+    private static final int[] MIN = new int[DOMAINS];
+    
+    //the largest value of each domain
+    private static final int[] MAX = new int[DOMAINS];
+    
+    //the value of each domain with a single value, otherwise -1
+    private static final int[] SINGLE = new int[DOMAINS];
+    
+    static
+    {
+        for (int domain = 0; domain < DOMAINS; domain++)
+        {
+            MIN[domain] = -1;
+            MAX[domain] = -1;
+            SINGLE[domain] = -1;
+            
+            for (int value = 0; value < MAX_RANGE; value++)
+            {
+                if ((domain & (1 << value)) == 0)
+                    continue;
+                
+                if (MIN[domain] < 0)
+                    MIN[domain] = value;
+                
+                MAX[domain] = value;
+            }
+            
+            if (Integer.bitCount(domain) == 1)
+                SINGLE[domain] = MIN[domain];
+        }
+    }
+    
+    //store the dimensions
+    private int cols, rows, range;
+    
+    //the number of pegs and blocks
+    private int cells, blocks;
+    
+    //the values each peg can still have
+    private int[] domain;
+    
+    //the clue of each block
+    private int[] clues;
+    
+    //the 4 pegs of each block
+    private int[] blockCells;
+    
+    //the blocks each peg belongs to, up to 4 per peg (-1 if not used)
+    private int[] cellBlocks;
+    
+    //the domain changes we have made so we can undo them
+    private int[] trailCell, trailDomain;
+    private int trailSize;
+    
+    //the blocks waiting to be checked
+    private int[] queue;
+    private boolean[] queued;
+    private int queueHead, queueSize;
+    
+    //the values of a solution
+    private int[] values;
+    
+    //the most guesses made for a single puzzle before we give up
+    private final long budget;
+    
+    //the guesses made for the current puzzle
+    private long guesses;
+    
+    /**
+     * Create a new solver that searches until it is done
+     */
+    public Solver()
+    {
+        this(Long.MAX_VALUE);
+    }
+    
+    /**
+     * Create a new solver that gives up on a puzzle after a number of guesses
+     * @param budget The most guesses made for a single puzzle, the result is abandoned once they run out
+     */
+    public Solver(final long budget)
+    {
+        if (budget < 1)
+            throw new IllegalArgumentException("Invalid budget - " + budget);
+        
+        //arrays are created when the first puzzle is solved
+        this.budget = budget;
+    }
+    
+    @Override
+    public Result solve(final Puzzle puzzle, final int limit)
+    {
+        this.guesses = 0;
+        
+        //create the result
+        final Result result = new Result(limit);
+        
+        //setup the puzzle, if the puzzle is already invalid there are no solutions
+        if (!setup(puzzle))
+            return result;
+        
+        //now search
+        search(result, 0);
+        
+        return result;
+    }
+    
+    /**
+     * Prepare the arrays for the specified puzzle and apply the initial deductions
+     * @param puzzle The puzzle we want to solve
+     * @return true if the puzzle can still be solved, false if a contradiction was found
+     */
+    private boolean setup(final Puzzle puzzle)
+    {
+        //only create new arrays if the size changes
+        if (domain == null || puzzle.getCols() != cols || puzzle.getRows() != rows)
+        {
+            this.cols = puzzle.getCols();
+            this.rows = puzzle.getRows();
+            this.cells = cols * rows;
+            this.blocks = (cols - 1) * (rows - 1);
+            
+            this.domain = new int[cells];
+            this.values = new int[cells];
+            this.clues = new int[blocks];
+            this.blockCells = new int[blocks * 4];
+            this.cellBlocks = new int[cells * 4];
+            this.trailCell = new int[cells * MAX_RANGE];
+            this.trailDomain = new int[trailCell.length];
+            this.queue = new int[blocks];
+            this.queued = new boolean[blocks];
+            
+            //no blocks for each peg yet
+            for (int index = 0; index < cellBlocks.length; index++)
+            {
+                cellBlocks[index] = -1;
+            }
+            
+            //map the pegs to each block, and each block to the pegs
+            for (int row = 0; row < rows - 1; row++)
+            {
+                for (int col = 0; col < cols - 1; col++)
+                {
+                    final int block = (row * (cols - 1)) + col;
+                    final int cell = (row * cols) + col;
+                    
+                    link(block, 0, cell);
+                    link(block, 1, cell + 1);
+                    link(block, 2, cell + cols);
+                    link(block, 3, cell + cols + 1);
+                }
+            }
+        }
+        
+        this.range = puzzle.getRange();
+        this.trailSize = 0;
+        this.queueHead = 0;
+        this.queueSize = 0;
+        
+        //every value is possible unless the peg was given
+        final int full = (1 << range) - 1;
+        
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                final int given = puzzle.getGiven(col, row);
+                
+                if (given == Puzzle.UNKNOWN)
+                {
+                    domain[(row * cols) + col] = full;
+                }
+                else
+                {
+                    if (given < 0 || given >= range)
+                        return false;
+                    
+                    domain[(row * cols) + col] = (1 << given);
+                }
+            }
+        }
+        
+        //assign the clues and check every block
+        for (int row = 0; row < rows - 1; row++)
+        {
+            for (int col = 0; col < cols - 1; col++)
+            {
+                final int block = (row * (cols - 1)) + col;
+                
+                clues[block] = puzzle.getClue(col, row);
+                queued[block] = false;
+                enqueue(block);
+            }
+        }
+        
+        return propagate();
+    }
+    
+    /**
+     * Link the peg and the block to each other
+     * @param block The block
+     * @param corner Which corner of the block (0 - 3)
+     * @param cell The peg
+     */
+    private void link(final int block, final int corner, final int cell)
+    {
+        blockCells[(block * 4) + corner] = cell;
+        
+        //find the first free spot for this peg
+        for (int index = cell * 4; index < (cell * 4) + 4; index++)
+        {
+            if (cellBlocks[index] < 0)
+            {
+                cellBlocks[index] = block;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Search every value of the remaining pegs
+     * @param result Object to record the solutions
+     * @param start The first peg that may still have more than 1 value
+     */
+    private void search(final Result result, final int start)
+    {
+        //find the next peg with more than 1 value
+        int cell = start;
+        
+        while (cell < cells && SINGLE[domain[cell]] >= 0)
+        {
+            cell++;
+        }
+        
+        //every peg has a value, we found a solution
+        if (cell >= cells)
+        {
+            for (int index = 0; index < cells; index++)
+            {
+                values[index] = SINGLE[domain[index]];
+            }
+            
+            result.add(values, cols, rows);
+            return;
+        }
+        
+        //we ran out of guesses, the count is no longer known
+        if (++guesses > budget)
+        {
+            result.abandon();
+            return;
+        }
+        
+        final int current = domain[cell];
+        
+        //try each value the peg can still have
+        for (int value = 0; value < range; value++)
+        {
+            if ((current & (1 << value)) == 0)
+                continue;
+            
+            //remember where we are, so we can undo
+            final int mark = trailSize;
+            
+            if (narrow(cell, 1 << value) && propagate())
+                search(result, cell + 1);
+            
+            undo(mark);
+            
+            //no need to continue if we found enough
+            if (result.isComplete() || result.isAbandoned())
+                return;
+        }
+    }
+    
+    /**
+     * Narrow the domain of the peg and check the blocks it belongs to
+     * @param cell The peg
+     * @param value The new domain of the peg
+     * @return true if the peg still has a value, false otherwise
+     */
+    private boolean narrow(final int cell, final int value)
+    {
+        if (value == 0)
+            return false;
+        
+        //nothing changed
+        if (value == domain[cell])
+            return true;
+        
+        //record the change
+        trailCell[trailSize] = cell;
+        trailDomain[trailSize] = domain[cell];
+        trailSize++;
+        
+        domain[cell] = value;
+        
+        //each block of this peg needs to be checked again
+        for (int index = cell * 4; index < (cell * 4) + 4; index++)
+        {
+            if (cellBlocks[index] >= 0)
+                enqueue(cellBlocks[index]);
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Undo the domain changes
+     * @param mark The size of the trail we want to go back to
+     */
+    private void undo(final int mark)
+    {
+        while (trailSize > mark)
+        {
+            trailSize--;
+            domain[trailCell[trailSize]] = trailDomain[trailSize];
+        }
+    }
+    
+    /**
+     * Add the block to be checked
+     * @param block The block
+     */
+    private void enqueue(final int block)
+    {
+        if (queued[block])
+            return;
+        
+        queued[block] = true;
+        queue[(queueHead + queueSize) % blocks] = block;
+        queueSize++;
+    }
+    
+    /**
+     * Check the queued blocks until no more deductions can be made
+     * @return true if the board can still be solved, false if a contradiction was found
+     */
+    private boolean propagate()
+    {
+        while (queueSize > 0)
+        {
+            final int block = queue[queueHead];
+            queueHead = (queueHead + 1) % blocks;
+            queueSize--;
+            queued[block] = false;
+            
+            if (!revise(block))
+            {
+                //empty the queue before we undo
+                while (queueSize > 0)
+                {
+                    queued[queue[queueHead]] = false;
+                    queueHead = (queueHead + 1) % blocks;
+                    queueSize--;
+                }
+                
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Narrow the domain of each corner so the block total can still equal the clue
+     * @param block The block to check
+     * @return true if the block can still equal the clue, false otherwise
+     */
+    private boolean revise(final int block)
+    {
+        final int offset = block * 4;
+        final int clue = clues[block];
+        
+        //calculate the smallest and largest possible total
+        int sumMin = 0, sumMax = 0;
+        
+        for (int corner = 0; corner < 4; corner++)
+        {
+            final int current = domain[blockCells[offset + corner]];
+            sumMin += MIN[current];
+            sumMax += MAX[current];
+        }
+        
+        //the clue can't be reached
+        if (clue < sumMin || clue > sumMax)
+            return false;
+        
+        //narrow each corner to the values that still let the block reach the clue
+        for (int corner = 0; corner < 4; corner++)
+        {
+            final int cell = blockCells[offset + corner];
+            final int current = domain[cell];
+            
+            //the range of values this corner can have, given what the other corners can add up to
+            final int low = clue - (sumMax - MAX[current]);
+            final int high = clue - (sumMin - MIN[current]);
+            
+            if (!narrow(cell, current & getMask(low, high)))
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Get the domain of the values in the range
+     * @param low The smallest value
+     * @param high The largest value
+     * @return The domain containing every value from low to high
+     */
+    private static int getMask(int low, int high)
+    {
+        if (low < 0)
+            low = 0;
+        if (high >= MAX_RANGE)
+            high = MAX_RANGE - 1;
+        if (low > high)
+            return 0;
+        
+        return ((1 << (high + 1)) - 1) & ~((1 << low) - 1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.gamesbykevin.squares.solver;
+
+/**
+ * Pick the solver backend for a puzzle.<br>
+ * Boards are solved by backtracking, and the {@link SatSolver} is only used when the backtracking runs out of guesses (see {@link FallbackSolver}).
+ * Clauses are several times slower to solve than backtracking on most boards, so the size alone doesn't pick it.
+ * Each backend is created the first time it is needed and reused, so a single factory is not thread safe.
+ * @author GOD
+ */
+public final class SolverFactory
+{
+    //the backends
+    private FallbackSolver fallback;
+    
+    /**
+     * Create a new factory that solves each puzzle on the current thread
+     */
+    public SolverFactory()
+    {
+        //the backends are created when they are needed
+    }
+    
+    /**
+     * Get the solver
+     * @param puzzle The puzzle we want to solve
+     * @return The backend for the puzzle
+     */
+    public ISolver getSolver(final Puzzle puzzle)
+    {
+        if (fallback == null)
+            fallback = new FallbackSolver();
+        
+        return fallback;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,471 @@
+package com.gamesbykevin.squares.solver;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A solver that counts every solution exactly, one row of pegs at a time (transfer matrix).<br>
+ * Each row is a state, the value of every peg in the row. Two rows fit together when the 4 corners of each block between them equal the clue,
+ * and the block total is the horizontal pair totals of the top row plus those of the bottom row.
+ * So the rows that can follow a row are every state whose pair totals are the clues minus its own, and states are grouped by their pair totals.<br>
+ * The time is linear in the rows and the states grow with the range to the power of the columns,
+ * so only boards up to {@link #MAX_STATES} states per row are supported.
+ * The tables only depend on the width and range so they are shared by every level of that size.
+ * A single solver keeps no state between puzzles, so it is thread safe.
+ * @author GOD
+ */
+public final class TransferSolver implements ISolver
+{
+    /**
+     * The most states a row can have
+     */
+    public static final int MAX_STATES = 1 << 16;
+    
+    //the tables for each width and range
+    private static final Map<Integer, Table> TABLES = new HashMap<Integer, Table>();
+    
+    /**
+     * The states of a single row of pegs and how they are grouped
+     */
+    private static final class Table
+    {
+        //store the dimensions
+        private final int cols, range;
+        
+        //the number of states
+        private final int states;
+        
+        //the value of each peg of each state [(state * cols) + col]
+        private final byte[] values;
+        
+        //the place value of each pair total in a code, each total is a digit of base (range * 2) - 1
+        private final int[] place;
+        
+        //the pair totals of each state as a code
+        private final int[] codes;
+        
+        //the distinct codes, sorted
+        private final int[] keys;
+        
+        //the states with keys[i] are members[starts[i]] up to members[starts[i + 1]]
+        private final int[] starts, members;
+        
+        private Table(final int cols, final int range)
+        {
+            this.cols = cols;
+            this.range = range;
+            this.states = getStates(cols, range);
+            this.values = new byte[states * cols];
+            this.place = new int[cols - 1];
+            this.codes = new int[states];
+            
+            for (int col = 0; col < cols - 1; col++)
+            {
+                place[col] = (col == 0) ? 1 : place[col - 1] * ((range * 2) - 1);
+            }
+            
+            for (int state = 0; state < states; state++)
+            {
+                //the first column is the lowest digit of the state
+                int remaining = state;
+                
+                for (int col = 0; col < cols; col++)
+                {
+                    values[(state * cols) + col] = (byte)(remaining % range);
+                    remaining /= range;
+                }
+                
+                for (int col = 0; col < cols - 1; col++)
+                {
+                    codes[state] += getPair(state, col) * place[col];
+                }
+            }
+            
+            //sort the states by code so each group is together
+            final long[] sorted = new long[states];
+            
+            for (int state = 0; state < states; state++)
+            {
+                sorted[state] = ((long)codes[state] << 32) | state;
+            }
+            
+            Arrays.sort(sorted);
+            
+            int count = 0;
+            
+            for (int index = 0; index < states; index++)
+            {
+                if (index == 0 || (int)(sorted[index] >> 32) != (int)(sorted[index - 1] >> 32))
+                    count++;
+            }
+            
+            this.keys = new int[count];
+            this.starts = new int[count + 1];
+            this.members = new int[states];
+            
+            count = 0;
+            
+            for (int index = 0; index < states; index++)
+            {
+                final int code = (int)(sorted[index] >> 32);
+                
+                if (index == 0 || code != keys[count - 1])
+                {
+                    keys[count] = code;
+                    starts[count] = index;
+                    count++;
+                }
+                
+                members[index] = (int)sorted[index];
+            }
+            
+            starts[count] = states;
+        }
+        
+        /**
+         * Get the value
+         * @param state The state of the row
+         * @param col Column
+         * @return The value of the peg in the state
+         */
+        private int getValue(final int state, final int col)
+        {
+            return values[(state * cols) + col];
+        }
+        
+        /**
+         * Get the pair total
+         * @param state The state of the row
+         * @param col Column of the block
+         * @return The total of the 2 pegs on the top or bottom of the block
+         */
+        private int getPair(final int state, final int col)
+        {
+            return getValue(state, col) + getValue(state, col + 1);
+        }
+    }
+    
+    /**
+     * Create a new solver
+     */
+    public TransferSolver()
+    {
+        //the tables are created when the first puzzle of a size is solved
+    }
+    
+    /**
+     * Can this solver be used for the puzzle?
+     * @param puzzle The puzzle we want to solve
+     * @return true if a row of the puzzle has no more than {@link #MAX_STATES} states, false otherwise
+     */
+    public static boolean isSupported(final Puzzle puzzle)
+    {
+        return (getStates(puzzle.getCols(), puzzle.getRange()) > 0);
+    }
+    
+    /**
+     * Get the number of states of a row
+     * @param cols Column dimension of the board
+     * @param range The number of values each peg can have
+     * @return The range to the power of the columns, or 0 if this is more than {@link #MAX_STATES}
+     */
+    private static int getStates(final int cols, final int range)
+    {
+        int states = 1;
+        
+        for (int col = 0; col < cols; col++)
+        {
+            states *= range;
+            
+            if (states > MAX_STATES)
+                return 0;
+        }
+        
+        return states;
+    }
+    
+    /**
+     * Get the table, it is created the first time a size is used
+     * @param cols Column dimension of the board
+     * @param range The number of values each peg can have
+     * @return The states of a row of this size
+     */
+    private static synchronized Table getTable(final int cols, final int range)
+    {
+        final Integer key = (cols << 8) | range;
+        
+        Table table = TABLES.get(key);
+        
+        if (table == null)
+        {
+            table = new Table(cols, range);
+            TABLES.put(key, table);
+        }
+        
+        return table;
+    }
+    
+    @Override
+    public Result solve(final Puzzle puzzle, final int limit)
+    {
+        final Result result = new Result(limit);
+        
+        //the pegs of each state that can be reached, so we can walk back to a solution
+        final BitSet[] reached = new BitSet[puzzle.getRows()];
+        
+        final long count = count(puzzle, reached);
+        
+        if (count > 0)
+        {
+            result.add(getSolution(puzzle, reached), puzzle.getCols(), puzzle.getRows());
+            result.addCount(count - 1);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Count every solution of the puzzle
+     * @param puzzle The puzzle we want to count
+     * @return The number of solutions, or Long.MAX_VALUE if there are too many to count
+     */
+    public long count(final Puzzle puzzle)
+    {
+        return count(puzzle, null);
+    }
+    
+    /**
+     * Count every solution of the puzzle, one row at a time
+     * @param puzzle The puzzle we want to count
+     * @param reached Object to record the states that can be reached in each row, may be null
+     * @return The number of solutions, or Long.MAX_VALUE if there are too many to count
+     */
+    private long count(final Puzzle puzzle, final BitSet[] reached)
+    {
+        if (!isSupported(puzzle))
+            throw new IllegalArgumentException("Puzzle is too wide - " + puzzle.getCols() + " columns with a range of " + puzzle.getRange());
+        
+        final Table table = getTable(puzzle.getCols(), puzzle.getRange());
+        final int cols = table.cols;
+        
+        //the number of ways to reach each state of the current row, and of the next row
+        long[] current = new long[table.states];
+        long[] next = new long[table.states];
+        
+        //the number of ways into each group of the next row
+        final long[] groups = new long[table.keys.length];
+        
+        //the clues of the blocks between the rows
+        final int[] clues = new int[cols - 1];
+        
+        //every state of the first row that fits the givens
+        for (int state = 0; state < table.states; state++)
+        {
+            current[state] = isGiven(puzzle, table, state, 0) ? 1 : 0;
+        }
+        
+        mark(reached, current, 0);
+        
+        for (int row = 0; row < puzzle.getRows() - 1; row++)
+        {
+            //the code of the clues, the pair totals of the next row are this code minus the code of the current row
+            int code = 0;
+            
+            for (int col = 0; col < cols - 1; col++)
+            {
+                clues[col] = puzzle.getClue(col, row);
+                code += clues[col] * table.place[col];
+            }
+            
+            Arrays.fill(groups, 0);
+            
+            //add the ways to reach each state to the group of states that can follow it
+            for (int state = 0; state < table.states; state++)
+            {
+                if (current[state] == 0)
+                    continue;
+                
+                final int group = getGroup(table, state, clues, code);
+                
+                if (group >= 0)
+                    groups[group] = add(groups[group], current[state]);
+            }
+            
+            Arrays.fill(next, 0);
+            
+            //every state in a group can be reached the same number of ways
+            for (int group = 0; group < groups.length; group++)
+            {
+                if (groups[group] == 0)
+                    continue;
+                
+                for (int index = table.starts[group]; index < table.starts[group + 1]; index++)
+                {
+                    final int state = table.members[index];
+                    
+                    if (isGiven(puzzle, table, state, row + 1))
+                        next[state] = groups[group];
+                }
+            }
+            
+            mark(reached, next, row + 1);
+            
+            //the next row is now the current row
+            final long[] tmp = current;
+            current = next;
+            next = tmp;
+        }
+        
+        //the total of every way to reach the last row
+        long total = 0;
+        
+        for (int state = 0; state < table.states; state++)
+        {
+            total = add(total, current[state]);
+        }
+        
+        return total;
+    }
+    
+    /**
+     * Get the group of states that can follow the state
+     * @param table The states of a row
+     * @param state The state of the current row
+     * @param clues The clues of the blocks below the current row
+     * @param code The code of the clues
+     * @return The index of the group, or -1 if no state can follow
+     */
+    private static int getGroup(final Table table, final int state, final int[] clues, final int code)
+    {
+        final int max = (table.range - 1) * 2;
+        
+        //each pair total of the next row has to be a possible total
+        for (int col = 0; col < clues.length; col++)
+        {
+            final int pair = clues[col] - table.getPair(state, col);
+            
+            if (pair < 0 || pair > max)
+                return -1;
+        }
+        
+        final int group = Arrays.binarySearch(table.keys, code - table.codes[state]);
+        
+        return (group >= 0) ? group : -1;
+    }
+    
+    /**
+     * Does the state fit the pegs that are given?
+     * @param puzzle The puzzle containing the givens
+     * @param table The states of a row
+     * @param state The state of the row
+     * @param row Row
+     * @return true if every given peg in the row has the value of the state, false otherwise
+     */
+    private static boolean isGiven(final Puzzle puzzle, final Table table, final int state, final int row)
+    {
+        for (int col = 0; col < table.cols; col++)
+        {
+            final int given = puzzle.getGiven(col, row);
+            
+            if (given != Puzzle.UNKNOWN && given != table.getValue(state, col))
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Record the states that can be reached
+     * @param reached Object to record the states of each row, may be null
+     * @param ways The number of ways to reach each state
+     * @param row Row
+     */
+    private static void mark(final BitSet[] reached, final long[] ways, final int row)
+    {
+        if (reached == null)
+            return;
+        
+        reached[row] = new BitSet(ways.length);
+        
+        for (int state = 0; state < ways.length; state++)
+        {
+            if (ways[state] > 0)
+                reached[row].set(state);
+        }
+    }
+    
+    /**
+     * Walk back from the last row to build a solution
+     * @param puzzle The puzzle that has at least 1 solution
+     * @param reached The states that can be reached in each row
+     * @return The value of each peg, stored row by row
+     */
+    private static int[] getSolution(final Puzzle puzzle, final BitSet[] reached)
+    {
+        final Table table = getTable(puzzle.getCols(), puzzle.getRange());
+        final int cols = table.cols;
+        final int rows = puzzle.getRows();
+        final int[] values = new int[cols * rows];
+        
+        //any state of the last row that was reached is the end of a solution
+        int state = reached[rows - 1].nextSetBit(0);
+        
+        for (int row = rows - 1; row >= 0; row--)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                values[(row * cols) + col] = table.getValue(state, col);
+            }
+            
+            if (row == 0)
+                break;
+            
+            //find a state of the row above that this state can follow
+            int above = reached[row - 1].nextSetBit(0);
+            
+            while (!isFollowed(puzzle, table, above, state, row - 1))
+            {
+                above = reached[row - 1].nextSetBit(above + 1);
+            }
+            
+            state = above;
+        }
+        
+        return values;
+    }
+    
+    /**
+     * Does every block between the 2 rows equal the clue?
+     * @param puzzle The puzzle containing the clues
+     * @param table The states of a row
+     * @param top The state of the top row
+     * @param bottom The state of the bottom row
+     * @param row The row of the blocks
+     * @return true if every block equals the clue, false otherwise
+     */
+    private static boolean isFollowed(final Puzzle puzzle, final Table table, final int top, final int bottom, final int row)
+    {
+        for (int col = 0; col < table.cols - 1; col++)
+        {
+            if (table.getPair(top, col) + table.getPair(bottom, col) != puzzle.getClue(col, row))
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Add the number of ways, without going past Long.MAX_VALUE
+     * @param a The first number of ways
+     * @param b The second number of ways
+     * @return The total
+     */
+    private static long add(final long a, final long b)
+    {
+        final long total = a + b;
+        
+        return (total < 0) ? Long.MAX_VALUE : total;
+    }
+}
\ No newline at end of file
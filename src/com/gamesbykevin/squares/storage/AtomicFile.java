@@ -0,0 +1,63 @@
+package com.gamesbykevin.squares.storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Replace a file all at once.<br>
+ * The content is written to a temp file first and then renamed, so a crash mid-write leaves the previous file intact.
+ * This has no platform dependencies, so the score journal can be used on a plain JVM.
+ * @author GOD
+ */
+public final class AtomicFile
+{
+    /**
+     * The extension of each temp file
+     */
+    private static final String TEMP_EXTENSION = ".tmp";
+    
+    private AtomicFile()
+    {
+        //only static methods are used
+    }
+    
+    /**
+     * Write the file to a temp file, then replace the file with it
+     * @param file The file to write
+     * @param data The content of the file
+     * @throws IOException
+     */
+    public static void write(final File file, final byte[] data) throws IOException
+    {
+        final File temp = getTempFile(file);
+        
+        final FileOutputStream output = new FileOutputStream(temp);
+        
+        try
+        {
+            output.write(data);
+            
+            //make sure the data is on the disk before it replaces the file
+            output.getFD().sync();
+        }
+        finally
+        {
+            output.close();
+        }
+        
+        //the rename replaces the file all at once
+        if (!temp.renameTo(file))
+            throw new IOException("Unable to replace " + file.getPath());
+    }
+    
+    /**
+     * Get the temp file
+     * @param file The file being written
+     * @return The file that is written first, before it replaces the file
+     */
+    public static File getTempFile(final File file)
+    {
+        return new File(file.getPath() + TEMP_EXTENSION);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,206 @@
+package com.gamesbykevin.squares.storage;
+
+import com.gamesbykevin.androidframework.resources.Disposable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single background worker that does all of the writing to the internal storage.<br>
+ * Files are only marked dirty when they change, and the latest content of each file is written
+ * at most once per interval, so several changes in a row only cost 1 write.<br>
+ * Each file is replaced all at once by the {@link AtomicFile}, so a crash mid-write leaves the previous file intact.
+ * @author GOD
+ */
+public final class Persistence implements Executor, Disposable
+{
+    /**
+     * The least amount of time between writes to the storage (milliseconds)
+     */
+    public static final long FLUSH_INTERVAL = 1000L;
+    
+    /**
+     * How long we wait for pending writes when disposed (milliseconds)
+     */
+    private static final long DISPOSE_TIMEOUT = 2000L;
+    
+    /**
+     * The character set of each file
+     */
+    private static final String CHARSET = "UTF-8";
+    
+    //where the files are kept
+    private final File directory;
+    
+    //the thread doing the writing
+    private ScheduledExecutorService executor;
+    
+    //the latest content of each dirty file
+    private final Map<String, String> pending = new LinkedHashMap<String, String>();
+    
+    //has a flush been scheduled
+    private boolean scheduled = false;
+    
+    //the time of the last flush
+    private long flushed = 0;
+    
+    //write every dirty file
+    private final Runnable flush = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            flushPending();
+        }
+    };
+    
+    /**
+     * Create the worker
+     * @param directory Where the files are kept in the internal storage
+     */
+    public Persistence(final File directory)
+    {
+        this.directory = directory;
+        
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(final Runnable runnable)
+            {
+                final Thread thread = new Thread(runnable, "Persistence");
+                
+                //don't compete with the game thread, and don't keep the app alive
+                thread.setPriority(Thread.MIN_PRIORITY);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+    
+    /**
+     * Get the directory
+     * @return Where the files are kept in the internal storage
+     */
+    public File getDirectory()
+    {
+        return this.directory;
+    }
+    
+    /**
+     * Mark the file dirty with the new content.<br>
+     * The file is written in the background, if it changes again before then only the latest content is written.
+     * @param name The name of the file in the internal storage
+     * @param content The content of the file
+     */
+    public synchronized void write(final String name, final String content)
+    {
+        if (executor == null)
+            return;
+        
+        pending.put(name, content);
+        
+        //a flush is already on the way
+        if (scheduled)
+            return;
+        
+        scheduled = true;
+        
+        //wait until the interval has passed since the last flush
+        final long delay = Math.max(0, flushed + FLUSH_INTERVAL - System.currentTimeMillis());
+        
+        executor.schedule(flush, delay, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Write every dirty file now, in the background.<br>
+     * This should be called when the app may be closed, in case we never come back.
+     */
+    public synchronized void flush()
+    {
+        if (executor != null && !pending.isEmpty())
+            executor.execute(flush);
+    }
+    
+    /**
+     * Run the task on the worker, after anything already waiting
+     * @param task The task that writes to the storage
+     */
+    @Override
+    public synchronized void execute(final Runnable task)
+    {
+        if (executor != null)
+            executor.execute(task);
+    }
+    
+    /**
+     * Write the dirty files, this is only called by the worker
+     */
+    private void flushPending()
+    {
+        final Map<String, String> files;
+        
+        synchronized (this)
+        {
+            //nothing to write, we were already flushed
+            if (pending.isEmpty())
+                return;
+            
+            files = new LinkedHashMap<String, String>(pending);
+            pending.clear();
+            scheduled = false;
+            flushed = System.currentTimeMillis();
+        }
+        
+        for (Map.Entry<String, String> file : files.entrySet())
+        {
+            try
+            {
+                AtomicFile.write(new File(directory, file.getKey()), file.getValue().getBytes(CHARSET));
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Write every dirty file and stop the worker.<br>
+     * This will wait for the writing to finish.
+     */
+    @Override
+    public void dispose()
+    {
+        final ScheduledExecutorService executor;
+        
+        synchronized (this)
+        {
+            executor = this.executor;
+            this.executor = null;
+            
+            if (executor == null)
+                return;
+            
+            //write anything still pending
+            executor.execute(flush);
+        }
+        
+        executor.shutdown();
+        
+        try
+        {
+            executor.awaitTermination(DISPOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
@@ -4,6 +4,7 @@ import android.app.Activity;
 import com.gamesbykevin.androidframework.io.storage.Internal;
 import com.gamesbykevin.androidframework.resources.Audio;
 import com.gamesbykevin.squares.screen.OptionsScreen;
+import com.gamesbykevin.squares.storage.Persistence;
 
 /**
  * Save the settings to the internal storage
@@ -19,13 +20,24 @@ public final class Settings extends Internal
      */
     private static final String SEPARATOR = ";";
     
-    public Settings(final OptionsScreen screen, final Activity activity)
+    /**
+     * The name of the file in the internal storage
+     */
+    private static final String FILE_NAME = "Settings";
+    
+    //writes the settings in the background
+    private final Persistence persistence;
+    
+    public Settings(final OptionsScreen screen, final Activity activity, final Persistence persistence)
     {
-        super("Settings", activity);
+        super(FILE_NAME, activity);
         
         //store our screen reference object
         this.screen = screen;
         
+        //store our storage worker
+        this.persistence = persistence;
+        
         //if content exists load it
         if (super.getContent().toString().trim().length() > 0)
         {
@@ -58,7 +70,8 @@ public final class Settings extends Internal
     }
     
     /**
-     * Save the settings to the internal storage
+     * Save the settings to the internal storage.<br>
+     * The file is written in the background by the storage worker.
      */
     @Override
     public void save()
@@ -79,8 +92,8 @@ public final class Settings extends Internal
             		super.getContent().append(SEPARATOR);
             }
 
-            //save data
-            super.save();
+            //save data in the background, to the same file we read
+            persistence.write(FILE_NAME, super.getContent().toString());
         }
         catch (Exception e)
         {
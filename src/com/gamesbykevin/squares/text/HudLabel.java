@@ -0,0 +1,110 @@
+package com.gamesbykevin.squares.text;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * A line of text on the hud, such as "Time: 00:01:05".<br>
+ * The text is a fixed label followed by a value, the value is only formatted again when it changes
+ * and the characters are drawn directly, so rendering the hud every frame does not create any objects.
+ * @author GOD
+ */
+public final class HudLabel
+{
+    /**
+     * The most characters the text can have
+     */
+    private static final int CAPACITY = 32;
+    
+    /**
+     * The value before anything is assigned
+     */
+    private static final long NONE = Long.MIN_VALUE;
+    
+    //time conversions
+    private static final long MILLISECONDS_PER_SECOND = 1000L;
+    
+    //the text in front of the value
+    private final String label;
+    
+    //the text that is drawn
+    private final TextBuffer text = new TextBuffer(CAPACITY);
+    
+    //where the text is drawn
+    private final int x, y;
+    
+    //the value currently displayed, either a number or a description
+    private long value = NONE;
+    private String description;
+    
+    /**
+     * Create a new label
+     * @param label The text in front of the value, for example "Time: "
+     * @param x x-coordinate of the text
+     * @param y y-coordinate of the baseline of the text
+     */
+    public HudLabel(final String label, final int x, final int y)
+    {
+        this.label = label;
+        this.x = x;
+        this.y = y;
+    }
+    
+    /**
+     * Display a number
+     * @param value The number
+     */
+    public void setNumber(final long value)
+    {
+        if (description == null && value == this.value)
+            return;
+        
+        this.value = value;
+        this.description = null;
+        
+        text.clear().append(label).append(value);
+    }
+    
+    /**
+     * Display a time as hours:minutes:seconds.<br>
+     * Only whole seconds are displayed, so the text is only formatted once per second.
+     * @param time The time (milliseconds), negative values are displayed as 0
+     */
+    public void setTime(final long time)
+    {
+        final long seconds = Math.max(0, time) / MILLISECONDS_PER_SECOND;
+        
+        if (description == null && seconds == this.value)
+            return;
+        
+        this.value = seconds;
+        this.description = null;
+        
+        text.clear().append(label).appendTime(seconds);
+    }
+    
+    /**
+     * Display a description
+     * @param description The description, typically a constant such as an enum name
+     */
+    public void setDescription(final String description)
+    {
+        if (description.equals(this.description))
+            return;
+        
+        this.value = NONE;
+        this.description = description;
+        
+        text.clear().append(label).append(description);
+    }
+    
+    /**
+     * Draw the text
+     * @param canvas Object we are writing pixel data to
+     * @param paint The paint used to draw the text
+     */
+    public void render(final Canvas canvas, final Paint paint)
+    {
+        canvas.drawText(text.getChars(), 0, text.length(), x, y, paint);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+package com.gamesbykevin.squares.text;
+
+/**
+ * A reusable line of text built from characters instead of strings.<br>
+ * Text that changes every frame would otherwise create a new string each time,
+ * appending to a buffer and drawing the characters directly does not create any objects.<br>
+ * This has no platform dependencies, the caller draws the characters with Canvas.drawText(char[], int, int, float, float, Paint).
+ * @author GOD
+ */
+public final class TextBuffer
+{
+    /**
+     * The most digits a long can have, including the sign
+     */
+    private static final int MAX_DIGITS = 20;
+    
+    //time conversions
+    private static final long SECONDS_PER_MINUTE = 60L;
+    private static final long SECONDS_PER_HOUR = 3600L;
+    
+    //the characters of the text
+    private final char[] chars;
+    
+    //the number of characters used
+    private int length;
+    
+    /**
+     * Create a new text buffer
+     * @param capacity The most characters the text can have, anything more is dropped
+     */
+    public TextBuffer(final int capacity)
+    {
+        this.chars = new char[capacity];
+    }
+    
+    /**
+     * Remove the text
+     * @return This text buffer
+     */
+    public TextBuffer clear()
+    {
+        this.length = 0;
+        return this;
+    }
+    
+    /**
+     * Get the length
+     * @return The number of characters in the text
+     */
+    public int length()
+    {
+        return this.length;
+    }
+    
+    /**
+     * Get the characters
+     * @return The characters of the text, only the first {@link #length()} are used
+     */
+    public char[] getChars()
+    {
+        return this.chars;
+    }
+    
+    /**
+     * Add the character
+     * @param c The character
+     * @return This text buffer
+     */
+    public TextBuffer append(final char c)
+    {
+        if (length < chars.length)
+            chars[length++] = c;
+        
+        return this;
+    }
+    
+    /**
+     * Add the text
+     * @param text The text, typically a constant
+     * @return This text buffer
+     */
+    public TextBuffer append(final String text)
+    {
+        final int count = Math.min(text.length(), chars.length - length);
+        
+        text.getChars(0, count, chars, length);
+        length += count;
+        
+        return this;
+    }
+    
+    /**
+     * Add the number
+     * @param value The number
+     * @return This text buffer
+     */
+    public TextBuffer append(final long value)
+    {
+        return append(value, 1);
+    }
+    
+    /**
+     * Add the number with leading zeros
+     * @param value The number
+     * @param digits The least number of digits to write, for example 2 writes 5 as "05"
+     * @return This text buffer
+     */
+    public TextBuffer append(long value, int digits)
+    {
+        if (value < 0)
+        {
+            append('-');
+            
+            //the smallest long can't be negated
+            if (value == Long.MIN_VALUE)
+                return append("9223372036854775808");
+            
+            value = -value;
+        }
+        
+        //count the digits of the value
+        int count = 1;
+        
+        for (long remaining = value / 10; remaining > 0; remaining /= 10)
+        {
+            count++;
+        }
+        
+        count = Math.min(Math.max(count, digits), MAX_DIGITS);
+        
+        //write the digits from the end, dropping any that don't fit
+        final int end = Math.min(length + count, chars.length);
+        
+        for (int index = length + count - 1; index >= length; index--)
+        {
+            if (index < end)
+                chars[index] = (char)('0' + (value % 10));
+            
+            value /= 10;
+        }
+        
+        length = end;
+        
+        return this;
+    }
+    
+    /**
+     * Add the number with a fixed number of decimals.<br>
+     * For example the value 12345 with 3 decimals is written as "12.345"
+     * @param value The number, as a whole number of the smallest decimal
+     * @param decimals The number of decimals
+     * @return This text buffer
+     */
+    public TextBuffer appendDecimal(final long value, final int decimals)
+    {
+        long scale = 1;
+        
+        for (int index = 0; index < decimals; index++)
+        {
+            scale *= 10;
+        }
+        
+        if (value < 0)
+            append('-');
+        
+        final long whole = Math.abs(value / scale);
+        final long fraction = Math.abs(value % scale);
+        
+        append(whole);
+        
+        if (decimals > 0)
+        {
+            append('.');
+            append(fraction, decimals);
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Add the time as hours:minutes:seconds, for example "00:01:05"
+     * @param seconds The time in whole seconds
+     * @return This text buffer
+     */
+    public TextBuffer appendTime(final long seconds)
+    {
+        append(seconds / SECONDS_PER_HOUR, 2).append(':');
+        append((seconds / SECONDS_PER_MINUTE) % SECONDS_PER_MINUTE, 2).append(':');
+        append(seconds % SECONDS_PER_MINUTE, 2);
+        
+        return this;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return new String(chars, 0, length);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,288 @@
+package com.gamesbykevin.squares.thread;
+
+/**
+ * Decide how fast the game loop runs.<br>
+ * The cost to update and draw each frame is measured, and the fastest rate from the set that the device can keep up with is chosen.
+ * The rate is also capped by what is on the screen: the board gets the fastest rate,
+ * the menus and level select a slower rate, and the slowest rate is used once there has been no input for a while.<br>
+ * Every decision is kept so it can be reported.
+ * @author GOD
+ */
+public final class FrameGovernor
+{
+    /**
+     * The default frame rates to choose from
+     */
+    public static final int[] DEFAULT_RATES = {60, 30, 15, 5};
+    
+    /**
+     * The fastest rate used when the player is not on the board
+     */
+    public static final int MENU_RATE = 15;
+    
+    /**
+     * How long without input before we slow to the idle rate (nanoseconds)
+     */
+    public static final long IDLE_TIMEOUT = 10000000000L;
+    
+    /**
+     * The frame cost must fit within the frame period with this much room to spare
+     */
+    private static final double HEADROOM = 1.25;
+    
+    /**
+     * The number of frames in a row that need to be under budget before we speed up again
+     */
+    private static final int RAISE_FRAMES = 30;
+    
+    /**
+     * The least amount of time we rest after a frame, even if it was over budget (nanoseconds)
+     */
+    private static final long MIN_REST = 2000000L;
+    
+    /**
+     * How much each frame affects the average cost, 1 / 2^n
+     */
+    private static final int AVERAGE_SHIFT = 3;
+    
+    /**
+     * Why the current rate was chosen
+     */
+    public enum Reason
+    {
+        Interactive, Menu, Idle, Load
+    }
+    
+    //the rates to choose from, fastest first
+    private final int[] rates;
+    
+    //the length of each frame (nanoseconds)
+    private final long[] periods;
+    
+    //the fastest rate allowed on the menus
+    private final int menuIndex;
+    
+    //the current rate
+    private int index;
+    
+    //why the current rate was chosen
+    private Reason reason = Reason.Interactive;
+    
+    //the number of frames in a row a faster rate could have been used
+    private int raise = 0;
+    
+    //the average cost of a frame (nanoseconds)
+    private long averageCost = 0;
+    
+    //the cost of the last frame (nanoseconds)
+    private long updateCost = 0, drawCost = 0;
+    
+    //the time of the last input
+    private volatile long inputTime = System.nanoTime();
+    
+    //the number of frames measured, over budget, and the number of times the rate changed
+    private long frames = 0, overruns = 0, changes = 0;
+    
+    /**
+     * Create a governor with the default rates
+     */
+    public FrameGovernor()
+    {
+        this(DEFAULT_RATES);
+    }
+    
+    /**
+     * Create a governor
+     * @param rates The frame rates to choose from, fastest first
+     */
+    public FrameGovernor(final int[] rates)
+    {
+        if (rates.length == 0)
+            throw new IllegalArgumentException("At least 1 rate is required");
+        
+        this.rates = rates.clone();
+        this.periods = new long[rates.length];
+        
+        int menu = rates.length - 1;
+        
+        for (int i = 0; i < rates.length; i++)
+        {
+            if (rates[i] < 1 || (i > 0 && rates[i] >= rates[i - 1]))
+                throw new IllegalArgumentException("Rates must be positive, fastest first");
+            
+            this.periods[i] = 1000000000L / rates[i];
+            
+            //the first rate no faster than the menu rate
+            if (rates[i] <= MENU_RATE && i < menu)
+                menu = i;
+        }
+        
+        this.menuIndex = menu;
+        this.index = 0;
+    }
+    
+    /**
+     * Record input from the player, this can be called from any thread
+     */
+    public void onInput()
+    {
+        this.inputTime = System.nanoTime();
+    }
+    
+    /**
+     * Record the cost of the frame and choose the rate of the next frame
+     * @param updateCost The time spent updating (nanoseconds)
+     * @param drawCost The time spent drawing (nanoseconds)
+     * @param interactive Is the player on the board?
+     * @return How long to rest before the next frame (nanoseconds)
+     */
+    public long onFrame(final long updateCost, final long drawCost, final boolean interactive)
+    {
+        final long cost = updateCost + drawCost;
+        
+        this.updateCost = updateCost;
+        this.drawCost = drawCost;
+        this.frames++;
+        
+        //the first frame is the average
+        this.averageCost = (frames == 1) ? cost : averageCost + ((cost - averageCost) >> AVERAGE_SHIFT);
+        
+        if (cost > periods[index])
+            overruns++;
+        
+        //the fastest rate allowed for what is on the screen
+        final int cap;
+        final Reason context;
+        
+        if (System.nanoTime() - inputTime >= IDLE_TIMEOUT)
+        {
+            cap = rates.length - 1;
+            context = Reason.Idle;
+        }
+        else if (!interactive)
+        {
+            cap = menuIndex;
+            context = Reason.Menu;
+        }
+        else
+        {
+            cap = 0;
+            context = Reason.Interactive;
+        }
+        
+        //the fastest rate allowed that we can keep up with
+        int desired = cap;
+        
+        while (desired < rates.length - 1 && averageCost * HEADROOM > periods[desired])
+        {
+            desired++;
+        }
+        
+        final Reason desiredReason = (desired > cap) ? Reason.Load : context;
+        
+        if (desired > index)
+        {
+            //slow down right away
+            setIndex(desired, desiredReason);
+        }
+        else if (desired < index)
+        {
+            //if we slowed down because of the load, only speed up once we have been under budget for a while
+            if (reason != Reason.Load || ++raise >= RAISE_FRAMES)
+                setIndex(desired, desiredReason);
+        }
+        else
+        {
+            raise = 0;
+            reason = desiredReason;
+        }
+        
+        //rest for the remainder of the frame
+        return Math.max(MIN_REST, periods[index] - cost);
+    }
+    
+    /**
+     * Change the rate
+     * @param index The index of the new rate
+     * @param reason Why the rate was chosen
+     */
+    private void setIndex(final int index, final Reason reason)
+    {
+        this.index = index;
+        this.reason = reason;
+        this.raise = 0;
+        this.changes++;
+    }
+    
+    /**
+     * Get the rate
+     * @return The current target frames per second
+     */
+    public int getRate()
+    {
+        return this.rates[index];
+    }
+    
+    /**
+     * Get the reason
+     * @return Why the current rate was chosen
+     */
+    public Reason getReason()
+    {
+        return this.reason;
+    }
+    
+    /**
+     * Get the average cost
+     * @return The average time to update and draw a frame (nanoseconds)
+     */
+    public long getAverageCost()
+    {
+        return this.averageCost;
+    }
+    
+    /**
+     * Get the update cost
+     * @return The time spent updating the last frame (nanoseconds)
+     */
+    public long getUpdateCost()
+    {
+        return this.updateCost;
+    }
+    
+    /**
+     * Get the draw cost
+     * @return The time spent drawing the last frame (nanoseconds)
+     */
+    public long getDrawCost()
+    {
+        return this.drawCost;
+    }
+    
+    /**
+     * Get the frames
+     * @return The number of frames measured
+     */
+    public long getFrames()
+    {
+        return this.frames;
+    }
+    
+    /**
+     * Get the overruns
+     * @return The number of frames that took longer than the frame period
+     */
+    public long getOverruns()
+    {
+        return this.overruns;
+    }
+    
+    /**
+     * Get the changes
+     * @return The number of times the rate has changed
+     */
+    public long getChanges()
+    {
+        return this.changes;
+    }
+}
\ No newline at end of file
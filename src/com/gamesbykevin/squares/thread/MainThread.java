@@ -5,7 +5,10 @@ import android.view.SurfaceHolder;
 
 import com.gamesbykevin.androidframework.anim.Animation;
 
+import com.gamesbykevin.squares.BuildConfig;
+import com.gamesbykevin.squares.metrics.AllocationGuard;
 import com.gamesbykevin.squares.panel.GamePanel;
+import com.gamesbykevin.squares.screen.MainScreen;
 
 /**
  * Our main thread containing the game loop
@@ -18,8 +21,38 @@ public class MainThread extends Thread
      */
     public static final boolean DEBUG = false;
     
-    //the assigned fps for this game
-    private static final int FPS = 30;
+    /**
+     * Do we check the game loop does not create objects?<br>
+     * This is on in every debug build, the parts of the loop that don't draw are also checked off the device by the allocation-check ant target.
+     */
+    public static final boolean ALLOCATION_GUARD = BuildConfig.DEBUG;
+    
+    /**
+     * Do we only update and render when a frame is requested?<br>
+     * If false, we update and render at the assigned fps the whole time.
+     */
+    public static final boolean ON_DEMAND = true;
+    
+    /**
+     * There is no frame scheduled
+     */
+    private static final long NOT_SCHEDULED = Long.MAX_VALUE;
+    
+    //used to wait until a frame is requested
+    private final Object lock = new Object();
+    
+    //has a frame been requested
+    private boolean dirty = true;
+    
+    //the time the next scheduled frame is due (milliseconds)
+    private long wakeTime = NOT_SCHEDULED;
+    
+    //decides the frame rate
+    private final FrameGovernor governor = new FrameGovernor();
+    
+    //checks the game loop does not create objects, only while debugging
+    private final AllocationGuard guard = (ALLOCATION_GUARD) ? new AllocationGuard(MainScreen.State.values(), 
+        MainScreen.State.Running, MainScreen.State.Paused, MainScreen.State.GameOver) : null;
     
     //our game panel
     private final GamePanel panel;
@@ -28,7 +61,7 @@ public class MainThread extends Thread
     private final SurfaceHolder holder;
     
     //is the thread running
-    private boolean running;
+    private volatile boolean running;
     
     //our canvas to render image(s)
     public static Canvas canvas;
@@ -57,34 +90,49 @@ public class MainThread extends Thread
         //the frame count
         int frames = 0;
         
-        //the expected amount of time per each update
-        final long targetTime = (Animation.MILLISECONDS_PER_SECOND / FPS);
-        
         try
         {
             //continue to loop while the thread is running
             while (isRunning())
             {
+                //wait here until we have something to update
+                if (!await())
+                	break;
+                
                 //get the start time of this update
                 final long startTime = System.nanoTime();
 
                 //assign the canvas null
                 canvas = null;
+                
+                //the time spent waiting for the canvas and updating
+                long lockCost = 0, updateCost = 0;
 
                 try 
                 {
                     //attempt to lock the canvas to edit the pixels of the surface
                     canvas = holder.lockCanvas();
+                    lockCost = System.nanoTime() - startTime;
 
                     //make sure no other threads are accessing the holder
                     synchronized (holder)
                     {
+                        //count the objects created by the update and render
+                        if (guard != null)
+                            guard.begin();
+                        
                         //update our game panel
+                        final long updateTime = System.nanoTime();
                         this.panel.update();
+                        updateCost = System.nanoTime() - updateTime;
 
                         //if the canvas object was obtained, render
                         if (canvas != null)
                             this.panel.draw(canvas);
+                        
+                        //a settled state should not create any objects
+                        if (guard != null && guard.end(panel.getState()))
+                            System.out.println("Frame allocated in steady state " + panel.getState());
                     }
                 }
                 catch (Exception e)
@@ -108,20 +156,19 @@ public class MainThread extends Thread
                     }
                 }
 
-                //calculate the number of milliseconds elapsed
-                final long timeMillis = (System.nanoTime() - startTime) / Animation.NANO_SECONDS_PER_MILLISECOND;
-
-                //determine the amount of time to sleep
-                long waitTime = targetTime - timeMillis;
-
-                //make sure the wait time is at least 1 millisecond
-                if (waitTime < 1)
-                    waitTime = 1;
+                //everything other than waiting for the canvas and the update was spent drawing
+                final long drawCost = (System.nanoTime() - startTime) - lockCost - updateCost;
+                
+                //record the frame
+                panel.getMetrics().recordFrame(panel.getState(), lockCost, updateCost, drawCost);
+                
+                //the governor decides how long to rest, based on the cost of this frame and what is on the screen
+                final long waitTime = governor.onFrame(updateCost, drawCost, panel.isInteractive());
                 
                 try
                 {
                     //sleep the thread
-                    sleep(waitTime);
+                    sleep(waitTime / Animation.NANO_SECONDS_PER_MILLISECOND, (int)(waitTime % Animation.NANO_SECONDS_PER_MILLISECOND));
                 }
                 catch (Exception e)
                 {
@@ -137,8 +184,8 @@ public class MainThread extends Thread
                     //increase the frame count
                     frames++;
 
-                    //if the frame count = the assigned fps
-                    if (frames == FPS)
+                    //if the frame count = the current fps
+                    if (frames >= governor.getRate())
                     {
                         //calculate the average fps
                         final double fpsAverage = (double)Animation.MILLISECONDS_PER_SECOND / ((double)(totalTime / frames) / Animation.NANO_SECONDS_PER_MILLISECOND);
@@ -148,7 +195,7 @@ public class MainThread extends Thread
                         totalTime = 0;
 
                         //display the average
-                        System.out.println("Average FPS " + fpsAverage);
+                        System.out.println("Average FPS " + fpsAverage + ", target " + governor.getRate() + " (" + governor.getReason() + ")");
                     }
                 }
             }
@@ -157,18 +204,100 @@ public class MainThread extends Thread
         {
             ex.printStackTrace();
         }
+        
+        //report what the guard found
+        if (guard != null)
+        {
+            guard.dispose();
+            System.out.println(guard.dump(MainScreen.State.values()));
+        }
 
         //stop thread
         this.setRunning(false);
     }
     
+    /**
+     * Get the governor
+     * @return The object deciding the frame rate, and the measurements it is based on
+     */
+    public FrameGovernor getGovernor()
+    {
+        return this.governor;
+    }
+    
+    /**
+     * Wait until a frame is requested or a scheduled frame is due
+     * @return true if we have a frame to update and render, false if the thread is no longer running
+     * @throws InterruptedException
+     */
+    private boolean await() throws InterruptedException
+    {
+        synchronized (lock)
+        {
+            while (isRunning() && ON_DEMAND && !dirty)
+            {
+                final long current = System.nanoTime() / Animation.NANO_SECONDS_PER_MILLISECOND;
+                
+                //the scheduled frame is due
+                if (current >= wakeTime)
+                    break;
+                
+                //wait until notified, or until the scheduled frame
+                lock.wait((wakeTime == NOT_SCHEDULED) ? 0 : wakeTime - current);
+            }
+            
+            //anything requested from now on will need another frame
+            dirty = false;
+            wakeTime = NOT_SCHEDULED;
+        }
+        
+        return isRunning();
+    }
+    
+    /**
+     * Request a frame, the game will be updated and rendered as soon as possible
+     */
+    public void invalidate()
+    {
+        synchronized (lock)
+        {
+            dirty = true;
+            lock.notifyAll();
+        }
+    }
+    
+    /**
+     * Request a frame after the delay.<br>
+     * If a frame is already scheduled sooner, that frame is kept.
+     * @param delay The number of milliseconds from now
+     */
+    public void schedule(final long delay)
+    {
+        synchronized (lock)
+        {
+            final long time = (System.nanoTime() / Animation.NANO_SECONDS_PER_MILLISECOND) + Math.max(0, delay);
+            
+            if (time < wakeTime)
+            {
+                wakeTime = time;
+                lock.notifyAll();
+            }
+        }
+    }
+    
     /**
      * Assign the thread to run.
      * @param running true the thread will continue to loop, false the thread will finish
      */
     public void setRunning(final boolean running)
     {
-        this.running = running;
+        synchronized (lock)
+        {
+            this.running = running;
+            
+            //wake the thread so it can finish
+            lock.notifyAll();
+        }
     }
     
     /**
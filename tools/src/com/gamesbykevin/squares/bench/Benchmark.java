@@ -0,0 +1,54 @@
+package com.gamesbykevin.squares.bench;
+
+/**
+ * A single operation to be timed by the {@link BenchmarkRunner}
+ * @author GOD
+ */
+public abstract class Benchmark
+{
+    //the name of the benchmark, used as the key in the results
+    private final String name;
+    
+    /**
+     * Create a new benchmark
+     * @param name The name of the benchmark, for example "hasMatch.bits.6x6"
+     */
+    protected Benchmark(final String name)
+    {
+        this.name = name;
+    }
+    
+    /**
+     * Get the name
+     * @return The name of the benchmark
+     */
+    public final String getName()
+    {
+        return this.name;
+    }
+    
+    /**
+     * Prepare anything the operation needs, this is not timed
+     * @throws Exception
+     */
+    public void setup() throws Exception
+    {
+        //nothing by default
+    }
+    
+    /**
+     * Run the operation once
+     * @return Any value from the result, so the work can't be removed by the compiler
+     * @throws Exception
+     */
+    public abstract int run() throws Exception;
+    
+    /**
+     * Recycle anything created by the setup, this is not timed
+     * @throws Exception
+     */
+    public void teardown() throws Exception
+    {
+        //nothing by default
+    }
+}
\ No newline at end of file
@@ -0,0 +1,284 @@
+package com.gamesbykevin.squares.bench;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time the board logic and score card on a plain JVM without Android.<br>
+ * Only the classes without platform dependencies are measured (the core package, the hit test, level packs and the score journal),
+ * so this lives in the tools source folder and compiles with the app source folder on the source path.<br>
+ * Each benchmark is warmed up, then measured over several timed iterations, and the median of the average time
+ * of a single operation in each iteration is reported in nanoseconds. The results are written as JSON, and if a baseline from a previous run
+ * is given, each result is compared to it so a slowdown shows up as a number.<br>
+ * Timings depend on the machine, so compare against a baseline recorded on the same machine.<br>
+ * Usage: BenchmarkRunner [baseline file] [output file, empty to skip] [name prefix]
+ * @author GOD
+ */
+public final class BenchmarkRunner
+{
+    /**
+     * The default baseline, committed with the source
+     */
+    public static final String DEFAULT_BASELINE = "bench/baseline.json";
+    
+    /**
+     * The number of iterations run before we measure
+     */
+    private static final int WARMUP_ITERATIONS = 5;
+    
+    /**
+     * The number of iterations measured
+     */
+    private static final int MEASURE_ITERATIONS = 5;
+    
+    /**
+     * The length of each iteration (nanoseconds)
+     */
+    private static final long ITERATION_TIME = 200000000L;
+    
+    /**
+     * The time of each batch of operations between checking the clock (nanoseconds)
+     */
+    private static final long BATCH_TIME = 1000000L;
+    
+    /**
+     * How much slower than the baseline a result can be before it is a regression
+     */
+    private static final double TOLERANCE = 0.25;
+    
+    /**
+     * A single result in the JSON, "name": nanoseconds
+     */
+    private static final Pattern RESULT = Pattern.compile("\"([^\"]+)\"\\s*:\\s*([0-9.]+)");
+    
+    //combine every result, so the operations can't be removed by the compiler
+    private static volatile int sink;
+    
+    private BenchmarkRunner()
+    {
+        //no instances
+    }
+    
+    /**
+     * Run the operation for an iteration
+     * @param benchmark The benchmark
+     * @return The average time of a single operation (nanoseconds)
+     * @throws Exception
+     */
+    private static double iterate(final Benchmark benchmark) throws Exception
+    {
+        long operations = 0;
+        int batch = 1;
+        int result = 0;
+        
+        final long start = System.nanoTime();
+        long elapsed = 0;
+        
+        while (elapsed < ITERATION_TIME)
+        {
+            final long batchStart = System.nanoTime();
+            
+            for (int index = 0; index < batch; index++)
+            {
+                result += benchmark.run();
+            }
+            
+            operations += batch;
+            
+            //run more operations per check while each batch is quick
+            final long current = System.nanoTime();
+            
+            if (current - batchStart < BATCH_TIME && batch < Integer.MAX_VALUE / 2)
+                batch *= 2;
+            
+            elapsed = current - start;
+        }
+        
+        sink += result;
+        
+        return (double)elapsed / operations;
+    }
+    
+    /**
+     * Measure the benchmark
+     * @param benchmark The benchmark
+     * @return The median of the average time of a single operation in each measured iteration (nanoseconds)
+     * @throws Exception
+     */
+    public static double measure(final Benchmark benchmark) throws Exception
+    {
+        benchmark.setup();
+        
+        try
+        {
+            for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++)
+            {
+                iterate(benchmark);
+            }
+            
+            //the median is not thrown off by a single slow iteration
+            final double[] times = new double[MEASURE_ITERATIONS];
+            
+            for (int iteration = 0; iteration < MEASURE_ITERATIONS; iteration++)
+            {
+                times[iteration] = iterate(benchmark);
+            }
+            
+            Arrays.sort(times);
+            
+            return times[MEASURE_ITERATIONS / 2];
+        }
+        finally
+        {
+            benchmark.teardown();
+        }
+    }
+    
+    /**
+     * Read the results
+     * @param file The JSON file
+     * @return The time of each benchmark (nanoseconds), empty if the file does not exist
+     * @throws Exception
+     */
+    public static Map<String, Double> read(final File file) throws Exception
+    {
+        final Map<String, Double> results = new LinkedHashMap<String, Double>();
+        
+        if (!file.isFile())
+            return results;
+        
+        final StringBuilder text = new StringBuilder();
+        final Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+        
+        try
+        {
+            final char[] buffer = new char[4096];
+            
+            for (int count = reader.read(buffer); count >= 0; count = reader.read(buffer))
+            {
+                text.append(buffer, 0, count);
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        
+        final Matcher matcher = RESULT.matcher(text);
+        
+        while (matcher.find())
+        {
+            results.put(matcher.group(1), Double.valueOf(matcher.group(2)));
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Write the results
+     * @param file The JSON file
+     * @param results The time of each benchmark (nanoseconds)
+     * @throws Exception
+     */
+    public static void write(final File file, final Map<String, Double> results) throws Exception
+    {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        
+        try
+        {
+            writer.write("{\n");
+            
+            int index = 0;
+            
+            for (Map.Entry<String, Double> entry : results.entrySet())
+            {
+                writer.write("  \"" + entry.getKey() + "\": " + String.format(Locale.US, "%.2f", entry.getValue()));
+                writer.write((++index < results.size()) ? ",\n" : "\n");
+            }
+            
+            writer.write("}\n");
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+    
+    /**
+     * Run the benchmarks and compare them to the baseline
+     * @param args [baseline file] [output file] [name prefix]
+     * @throws Exception
+     */
+    public static void main(final String[] args) throws Exception
+    {
+        final File baselineFile = new File((args.length > 0) ? args[0] : DEFAULT_BASELINE);
+        final File outputFile = (args.length > 1 && args[1].length() > 0) ? new File(args[1]) : null;
+        final String prefix = (args.length > 2) ? args[2] : "";
+        
+        //the journals are written to a temporary directory
+        final File directory = new File(System.getProperty("java.io.tmpdir"), "squares-bench");
+        
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new Exception("Unable to create " + directory.getAbsolutePath());
+        
+        final List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        BoardBenchmarks.add(benchmarks);
+        ScoreBenchmarks.add(benchmarks, directory);
+        
+        final Map<String, Double> baseline = read(baselineFile);
+        final Map<String, Double> results = new LinkedHashMap<String, Double>();
+        
+        //the number of benchmarks slower than the baseline
+        int regressions = 0;
+        
+        System.out.println("benchmark\tns/op\tbaseline\tchange");
+        
+        for (Benchmark benchmark : benchmarks)
+        {
+            if (!benchmark.getName().startsWith(prefix))
+                continue;
+            
+            final double time = measure(benchmark);
+            results.put(benchmark.getName(), time);
+            
+            final Double previous = baseline.get(benchmark.getName());
+            
+            String change = "new";
+            
+            if (previous != null && previous > 0)
+            {
+                final double ratio = (time / previous) - 1;
+                change = String.format(Locale.US, "%+.1f%%", ratio * 100);
+                
+                if (ratio > TOLERANCE)
+                {
+                    change += " REGRESSION";
+                    regressions++;
+                }
+            }
+            
+            System.out.println(benchmark.getName() + "\t" + String.format(Locale.US, "%.2f", time) + "\t" + 
+                ((previous != null) ? String.format(Locale.US, "%.2f", previous) : "-") + "\t" + change);
+        }
+        
+        if (outputFile != null)
+            write(outputFile, results);
+        
+        //a non-zero exit code fails the pre-release check
+        if (regressions > 0)
+            System.exit(1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,272 @@
+package com.gamesbykevin.squares.bench;
+
+import com.gamesbykevin.squares.board.HitTest;
+import com.gamesbykevin.squares.core.BitBoard;
+import com.gamesbykevin.squares.core.BoardRules;
+import com.gamesbykevin.squares.pack.LevelPack;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The benchmarks of the board logic that runs on every tap and every frame
+ * @author GOD
+ */
+public final class BoardBenchmarks
+{
+    /**
+     * The board sizes we measure, the largest is a synthetic board at the most columns a board can have
+     */
+    public static final int[][] SIZES = {{4, 4}, {6, 6}, {BitBoard.MAX_COLS, BitBoard.MAX_COLS}};
+    
+    /**
+     * The number of levels in each synthetic level pack
+     */
+    private static final int LEVELS = 64;
+    
+    /**
+     * The number of taps cycled through for the hit test
+     */
+    private static final int TAPS = 1024;
+    
+    /**
+     * The seed of the synthetic boards, so every run measures the same boards
+     */
+    private static final long SEED = 3L;
+    
+    private BoardBenchmarks()
+    {
+        //no instances
+    }
+    
+    /**
+     * Create a random key
+     * @param random Object used to make random decisions
+     * @param cols Column dimension of the board
+     * @param rows Row dimension of the board
+     * @return The value of every peg [rows][cols]
+     */
+    private static int[][] createKey(final Random random, final int cols, final int rows)
+    {
+        final int[][] key = new int[rows][cols];
+        
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < cols; col++)
+            {
+                key[row][col] = random.nextInt(BoardRules.RANGE_DEFAULT);
+            }
+        }
+        
+        return key;
+    }
+    
+    /**
+     * Copy the key into a bit board
+     * @param key The value of every peg [rows][cols]
+     * @return The packed key
+     */
+    private static BitBoard createBitBoard(final int[][] key)
+    {
+        final BitBoard board = new BitBoard(key[0].length, key.length);
+        
+        for (int row = 0; row < key.length; row++)
+        {
+            for (int col = 0; col < key[0].length; col++)
+            {
+                board.set(col, row, key[row][col]);
+            }
+        }
+        
+        return board;
+    }
+    
+    /**
+     * Add the board benchmarks for every size
+     * @param benchmarks The list to add to
+     */
+    public static void add(final List<Benchmark> benchmarks)
+    {
+        for (int[] size : SIZES)
+        {
+            final int cols = size[0];
+            final int rows = size[1];
+            final String suffix = "." + cols + "x" + rows;
+            
+            //the boards are identical, so every block is compared
+            final Random random = new Random(SEED);
+            final int[][] solution = createKey(random, cols, rows);
+            final int[][] player = createKey(new Random(SEED), cols, rows);
+            final BitBoard solutionBits = createBitBoard(solution);
+            final BitBoard playerBits = createBitBoard(player);
+            
+            benchmarks.add(new Benchmark("hasMatch.bits" + suffix)
+            {
+                @Override
+                public int run()
+                {
+                    return BoardRules.hasMatch(solutionBits, playerBits) ? 1 : 0;
+                }
+            });
+            
+            benchmarks.add(new Benchmark("hasMatch.array" + suffix)
+            {
+                @Override
+                public int run()
+                {
+                    return BoardRules.hasMatch(solution, player) ? 1 : 0;
+                }
+            });
+            
+            //random boards, so every row of blocks is counted to find the mismatches
+            final int[][] other = createKey(new Random(SEED + 1), cols, rows);
+            final BitBoard otherBits = createBitBoard(other);
+            
+            benchmarks.add(new Benchmark("mismatches.bits" + suffix)
+            {
+                @Override
+                public int run()
+                {
+                    int total = 0;
+                    
+                    for (int row = 0; row < rows - 1; row++)
+                    {
+                        total += Long.bitCount(otherBits.getMismatches(solutionBits, row));
+                    }
+                    
+                    return total;
+                }
+            });
+            
+            benchmarks.add(new Benchmark("mismatches.array" + suffix)
+            {
+                @Override
+                public int run()
+                {
+                    int total = 0;
+                    
+                    for (int row = 0; row < rows - 1; row++)
+                    {
+                        for (int col = 0; col < cols - 1; col++)
+                        {
+                            if (BoardRules.getCount(other, col, row) != BoardRules.getCount(solution, col, row))
+                                total++;
+                        }
+                    }
+                    
+                    return total;
+                }
+            });
+            
+            benchmarks.add(new Benchmark("getCount.array" + suffix)
+            {
+                @Override
+                public int run()
+                {
+                    int total = 0;
+                    
+                    for (int row = 0; row < rows - 1; row++)
+                    {
+                        for (int col = 0; col < cols - 1; col++)
+                        {
+                            total += BoardRules.getCount(solution, col, row);
+                        }
+                    }
+                    
+                    return total;
+                }
+            });
+            
+            benchmarks.add(new Benchmark("getCount.bits" + suffix)
+            {
+                //the counts of a row of blocks
+                private final int[] counts = new int[cols - 1];
+                
+                @Override
+                public int run()
+                {
+                    int total = 0;
+                    
+                    for (int row = 0; row < rows - 1; row++)
+                    {
+                        //the whole row is counted at once
+                        solutionBits.getCounts(row, counts);
+                        
+                        for (int col = 0; col < cols - 1; col++)
+                        {
+                            total += counts[col];
+                        }
+                    }
+                    
+                    return total;
+                }
+            });
+            
+            //the level parsing done by the board reset
+            benchmarks.add(new Benchmark("reset.decode" + suffix)
+            {
+                private LevelPack pack;
+                private BitBoard key;
+                private int index;
+                
+                @Override
+                public void setup() throws Exception
+                {
+                    final List<int[][]> keys = new ArrayList<int[][]>(LEVELS);
+                    
+                    for (int level = 0; level < LEVELS; level++)
+                    {
+                        keys.add(createKey(random, cols, rows));
+                    }
+                    
+                    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    LevelPack.write(output, keys);
+                    
+                    this.pack = LevelPack.read(new ByteArrayInputStream(output.toByteArray()));
+                    this.key = new BitBoard(cols, rows);
+                }
+                
+                @Override
+                public int run()
+                {
+                    index = (index + 1) % LEVELS;
+                    return pack.decode(index, key);
+                }
+            });
+            
+            //locating the peg of each tap done by the board update
+            benchmarks.add(new Benchmark("update.hitTest" + suffix)
+            {
+                private final HitTest hitTest = new HitTest();
+                private final float[] x = new float[TAPS], y = new float[TAPS];
+                private int index;
+                
+                @Override
+                public void setup()
+                {
+                    //fit the board in the same area the game uses
+                    final double cell = 400.0 / cols;
+                    hitTest.setBoard(cols, rows, 40, 100, cell, cell, cell * .6, cell * .6);
+                    
+                    final Random taps = new Random(SEED);
+                    
+                    for (int tap = 0; tap < TAPS; tap++)
+                    {
+                        x[tap] = taps.nextFloat() * 480;
+                        y[tap] = taps.nextFloat() * 800;
+                    }
+                }
+                
+                @Override
+                public int run()
+                {
+                    index = (index + 1) & (TAPS - 1);
+                    return hitTest.getIndex(x[index], y[index]);
+                }
+            });
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,252 @@
+package com.gamesbykevin.squares.bench;
+
+import com.gamesbykevin.squares.core.Score;
+import com.gamesbykevin.squares.core.ScoreTable;
+import com.gamesbykevin.squares.scorecard.ScoreJournal;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+/**
+ * The benchmarks of loading and saving the score card journal, and looking up the scores it loaded
+ * @author GOD
+ */
+public final class ScoreBenchmarks
+{
+    /**
+     * The number of levels with a score, for each difficulty
+     */
+    private static final int LEVELS = 200;
+    
+    /**
+     * The number of difficulties with a score
+     */
+    private static final int DIFFICULTIES = 5;
+    
+    /**
+     * The number of lookups cycled through, the levels are picked at random
+     */
+    private static final int LOOKUPS = 1024;
+    
+    /**
+     * The seed of the lookups, so every run measures the same lookups
+     */
+    private static final long SEED = 3L;
+    
+    /**
+     * Run each journal task right away on the calling thread, so the work is timed
+     */
+    private static final Executor DIRECT = new Executor()
+    {
+        @Override
+        public void execute(final Runnable task)
+        {
+            task.run();
+        }
+    };
+    
+    private ScoreBenchmarks()
+    {
+        //no instances
+    }
+    
+    /**
+     * Write a journal with a score for every level and difficulty
+     * @param file The journal file
+     * @return The open journal
+     * @throws Exception
+     */
+    private static ScoreJournal createJournal(final File file) throws Exception
+    {
+        if (file.exists() && !file.delete())
+            throw new Exception("Unable to delete " + file.getPath());
+        
+        final ScoreJournal journal = new ScoreJournal(file, DIRECT);
+        journal.open(new ScoreTable());
+        
+        for (int difficulty = 0; difficulty < DIFFICULTIES; difficulty++)
+        {
+            for (int level = 0; level < LEVELS; level++)
+            {
+                journal.append(level, difficulty, 60000L + level);
+            }
+        }
+        
+        return journal;
+    }
+    
+    /**
+     * Create a table with a score for every level and difficulty
+     * @return The scores
+     */
+    private static ScoreTable createTable()
+    {
+        final ScoreTable table = new ScoreTable();
+        
+        for (int difficulty = 0; difficulty < DIFFICULTIES; difficulty++)
+        {
+            for (int level = 0; level < LEVELS; level++)
+            {
+                table.add(level, difficulty, 60000L + level);
+            }
+        }
+        
+        return table;
+    }
+    
+    /**
+     * Add the score card benchmarks
+     * @param benchmarks The list to add to
+     * @param directory The directory the journals are written to
+     */
+    public static void add(final List<Benchmark> benchmarks, final File directory)
+    {
+        //read every score from the journal
+        benchmarks.add(new Benchmark("scores.load")
+        {
+            private final File file = new File(directory, "load.journal");
+            
+            //the scores are the same each time, so after the first run the table is only checked
+            private final ScoreTable table = new ScoreTable();
+            
+            @Override
+            public void setup() throws Exception
+            {
+                createJournal(file).close();
+            }
+            
+            @Override
+            public int run() throws Exception
+            {
+                final ScoreJournal journal = new ScoreJournal(file, DIRECT);
+                final int scores = journal.open(table);
+                journal.close();
+                
+                return scores;
+            }
+            
+            @Override
+            public void teardown()
+            {
+                file.delete();
+            }
+        });
+        
+        //save a new best time, compacting the journal whenever it has grown too large
+        benchmarks.add(new Benchmark("scores.save")
+        {
+            private final File file = new File(directory, "save.journal");
+            private ScoreJournal journal;
+            private int index;
+            
+            @Override
+            public void setup() throws Exception
+            {
+                journal = createJournal(file);
+            }
+            
+            @Override
+            public int run()
+            {
+                index++;
+                journal.append(index % LEVELS, (index / LEVELS) % DIFFICULTIES, 1000L);
+                
+                return index;
+            }
+            
+            @Override
+            public void teardown()
+            {
+                journal.close();
+                file.delete();
+            }
+        });
+        
+        //rewrite the journal with 1 record per score
+        benchmarks.add(new Benchmark("scores.compact")
+        {
+            private final File file = new File(directory, "compact.journal");
+            private ScoreJournal journal;
+            
+            @Override
+            public void setup() throws Exception
+            {
+                journal = createJournal(file);
+            }
+            
+            @Override
+            public int run()
+            {
+                journal.compact();
+                
+                return (int)file.length();
+            }
+            
+            @Override
+            public void teardown()
+            {
+                journal.close();
+                file.delete();
+            }
+        });
+        
+        //the best time shown for the current level
+        benchmarks.add(new Benchmark("scores.lookup.score")
+        {
+            private final ScoreTable table = createTable();
+            private final int[] levels = new int[LOOKUPS], difficulties = new int[LOOKUPS];
+            private int index;
+            
+            @Override
+            public void setup()
+            {
+                final Random random = new Random(SEED);
+                
+                for (int lookup = 0; lookup < LOOKUPS; lookup++)
+                {
+                    //some lookups are past the last level, those levels have no score
+                    levels[lookup] = random.nextInt(LEVELS + (LEVELS / 4));
+                    difficulties[lookup] = random.nextInt(DIFFICULTIES);
+                }
+            }
+            
+            @Override
+            public int run()
+            {
+                index = (index + 1) & (LOOKUPS - 1);
+                
+                final Score score = table.getScore(levels[index], difficulties[index]);
+                
+                return (score != null) ? (int)score.getTime() : 0;
+            }
+        });
+        
+        //marking the completed levels when the level select is loaded
+        benchmarks.add(new Benchmark("scores.lookup.completed")
+        {
+            private final ScoreTable table = createTable();
+            private int difficulty;
+            
+            @Override
+            public int run()
+            {
+                difficulty = (difficulty + 1) % DIFFICULTIES;
+                
+                final BitSet completed = table.getCompleted(difficulty);
+                
+                int total = 0;
+                
+                for (int level = 0; level < LEVELS; level++)
+                {
+                    if (completed.get(level))
+                        total++;
+                }
+                
+                return total;
+            }
+        });
+    }
+}
\ No newline at end of file
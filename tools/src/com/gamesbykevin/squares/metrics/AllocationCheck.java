@@ -0,0 +1,310 @@
+package com.gamesbykevin.squares.metrics;
+
+import com.gamesbykevin.squares.board.HitTest;
+import com.gamesbykevin.squares.core.BitBoard;
+import com.gamesbykevin.squares.core.BoardRules;
+import com.gamesbykevin.squares.core.BoardState;
+import com.gamesbykevin.squares.game.GameTimer;
+import com.gamesbykevin.squares.game.TouchQueue;
+import com.gamesbykevin.squares.text.TextBuffer;
+import com.gamesbykevin.squares.thread.FrameGovernor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+
+/**
+ * Verify the per frame work of the game loop does not create objects.<br>
+ * This runs on a plain JVM without Android. Each part of the loop that does not draw is run for thousands of frames
+ * and the bytes allocated by this thread are measured with the JVM thread counters.
+ * The "game update" part is the work Game.update() does each frame: applying the queued taps to the board state, checking for a match and the timer.
+ * The parts that draw are checked on the device by {@link AllocationGuard}, which is on in debug builds.<br>
+ * A non-zero exit code means a part allocated, so this can fail a pre-release check.<br>
+ * The thread counters are not part of Android, so this lives in the tools source folder and is not built into the app.
+ * Only classes without platform dependencies are used, it is compiled with the app source folder on the source path
+ * and run by the allocation-check ant target.<br>
+ * Usage: AllocationCheck [frames]
+ * @author GOD
+ */
+public final class AllocationCheck
+{
+    /**
+     * The default number of frames measured
+     */
+    private static final int DEFAULT_FRAMES = 10000;
+    
+    /**
+     * The number of frames run before we measure, so everything is loaded and compiled
+     */
+    private static final int WARMUP_FRAMES = 20000;
+    
+    /**
+     * The number of times each part is measured, the compiler can allocate while it replaces code
+     * so only a part that allocates every time is a failure
+     */
+    private static final int ROUNDS = 3;
+    
+    /**
+     * The states a frame can be in, the same as the screen states
+     */
+    private enum State
+    {
+        Ready, Running, Paused, Options, Exit, GameOver
+    }
+    
+    /**
+     * A part of the game loop
+     */
+    private interface Frame
+    {
+        /**
+         * Run a single frame
+         * @param frame The frame number
+         */
+        public void run(final int frame);
+    }
+    
+    //the thread counters
+    private final Object bean;
+    private final Method allocated;
+    
+    /**
+     * Create a new check
+     * @throws Exception If this JVM can't count allocations
+     */
+    private AllocationCheck() throws Exception
+    {
+        this.bean = ManagementFactory.getThreadMXBean();
+        this.allocated = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+    }
+    
+    /**
+     * Get the allocated bytes
+     * @return The total number of bytes allocated by the current thread
+     * @throws Exception
+     */
+    private long getAllocated() throws Exception
+    {
+        return (Long)allocated.invoke(bean, Thread.currentThread().getId());
+    }
+    
+    /**
+     * Measure the part of the loop
+     * @param frame The part of the loop
+     * @param frames The number of frames to measure
+     * @return The number of bytes allocated while running the frames
+     * @throws Exception
+     */
+    private long measure(final Frame frame, final int frames) throws Exception
+    {
+        for (int index = 0; index < WARMUP_FRAMES; index++)
+        {
+            frame.run(index);
+        }
+        
+        long result = Long.MAX_VALUE;
+        
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            final long start = getAllocated();
+            
+            for (int index = 0; index < frames; index++)
+            {
+                frame.run(index);
+            }
+            
+            result = Math.min(result, getAllocated() - start);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Run every part of the loop and print the report
+     * @param args [frames]
+     * @throws Exception
+     */
+    public static void main(final String[] args) throws Exception
+    {
+        final int frames = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_FRAMES;
+        
+        final AllocationCheck check = new AllocationCheck();
+        
+        //the bytes allocated just by measuring, subtracted from each part
+        final long overhead = check.measure(new Frame()
+        {
+            @Override
+            public void run(final int frame)
+            {
+                //nothing to do
+            }
+        }, frames);
+        
+        final String[] names = {"touch", "hit test", "bit board", "metrics", "governor", "hud text", "game update"};
+        final Frame[] parts = new Frame[names.length];
+        
+        //taps queued by the ui thread and applied by the game thread
+        final TouchQueue touches = new TouchQueue();
+        
+        parts[0] = new Frame()
+        {
+            @Override
+            public void run(final int frame)
+            {
+                touches.offer(frame, frame, frame);
+                touches.offer(frame, frame, frame);
+                
+                while (!touches.isEmpty())
+                {
+                    if (touches.getX() < 0 || touches.getY() < 0 || touches.getTime() < 0)
+                        throw new IllegalStateException();
+                    
+                    touches.remove();
+                }
+            }
+        };
+        
+        //locating the touched peg
+        final HitTest hitTest = new HitTest();
+        hitTest.setBoard(8, 8, 40, 100, 50, 50, 30, 30);
+        
+        parts[1] = new Frame()
+        {
+            @Override
+            public void run(final int frame)
+            {
+                hitTest.getIndex(frame % 480, frame % 800);
+            }
+        };
+        
+        //changing a peg and checking for a match
+        final BitBoard solution = new BitBoard(8, 8);
+        final BitBoard player = new BitBoard(8, 8);
+        
+        parts[2] = new Frame()
+        {
+            @Override
+            public void run(final int frame)
+            {
+                player.set(frame % 8, (frame / 8) % 8, !player.isSet(frame % 8, (frame / 8) % 8));
+                BoardRules.hasMatch(solution, player);
+            }
+        };
+        
+        //recording the frame
+        final FrameMetrics metrics = new FrameMetrics(State.values());
+        
+        parts[3] = new Frame()
+        {
+            @Override
+            public void run(final int frame)
+            {
+                metrics.recordFrame(State.Running, frame, frame * 100L, frame * 1000L);
+                metrics.recordInput(frame * 10000L);
+            }
+        };
+        
+        //choosing the frame rate
+        final FrameGovernor governor = new FrameGovernor();
+        
+        parts[4] = new Frame()
+        {
+            @Override
+            public void run(final int frame)
+            {
+                governor.onFrame(frame * 100L, frame * 1000L, (frame % 2) == 0);
+            }
+        };
+        
+        //formatting the hud and overlay text
+        final TextBuffer text = new TextBuffer(32);
+        
+        parts[5] = new Frame()
+        {
+            @Override
+            public void run(final int frame)
+            {
+                text.clear().append("Time: ").appendTime(frame);
+                text.clear().append("Level: ").append(frame);
+                text.clear().append("frame ").appendDecimal(frame, 2).append("ms");
+            }
+        };
+        
+        //the game update, taps are applied to the board the same way Game.update() and Board.update() do
+        final TouchQueue taps = new TouchQueue();
+        final HitTest board = new HitTest();
+        final BoardState state = new BoardState();
+        final GameTimer timer = new GameTimer();
+        final BitBoard key = new BitBoard(8, 8);
+        
+        for (int index = 0; index < 64; index++)
+        {
+            key.set(index % 8, index / 8, (index % 3) == 0);
+        }
+        
+        board.setBoard(8, 8, 40, 100, 50, 50, 30, 30);
+        state.reset(key, BoardRules.RANGE_DEFAULT);
+        timer.reset(60000L);
+        
+        parts[6] = new Frame()
+        {
+            @Override
+            public void run(final int frame)
+            {
+                //a tap on a peg, then a tap that misses every peg
+                taps.offer(40 + ((frame % 8) * 50), 100 + (((frame / 8) % 8) * 50), frame);
+                taps.offer(0, 0, frame);
+                
+                while (!taps.isEmpty())
+                {
+                    final float x = taps.getX();
+                    final float y = taps.getY();
+                    final long time = taps.getTime();
+                    
+                    taps.remove();
+                    
+                    final boolean match = state.hasMatch();
+                    final int index = board.getIndex(x, y);
+                    
+                    if (index != HitTest.MISS)
+                    {
+                        state.apply(board.getCol(index), board.getRow(index));
+                    }
+                    else
+                    {
+                        state.toggleFill();
+                    }
+                    
+                    metrics.recordInput(time);
+                    
+                    //start over once the board is solved, the same as the next level
+                    if (!match && state.hasMatch())
+                        state.reset(key, BoardRules.RANGE_DEFAULT);
+                }
+                
+                timer.update(frame * 16L);
+                
+                if (timer.getRemaining() < 0)
+                    timer.reset(60000L);
+                
+                timer.getDelay((frame % 2) == 0);
+            }
+        };
+        
+        //the number of parts that allocated
+        int failures = 0;
+        
+        for (int index = 0; index < parts.length; index++)
+        {
+            final long bytes = Math.max(0, check.measure(parts[index], frames) - overhead);
+            
+            if (bytes > 0)
+                failures++;
+            
+            System.out.println(names[index] + "\t" + frames + " frames\t" + bytes + " bytes\t" + ((bytes > 0) ? "FAIL" : "OK"));
+        }
+        
+        //a non-zero exit code fails the pre-release check
+        if (failures > 0)
+            System.exit(1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.gamesbykevin.squares.pack;
+
+import com.gamesbykevin.squares.core.BoardRules;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Convert the level text files into level packs.<br>
+ * The text files are mapped to the keys in order of the file name,
+ * and each pack is written as the lower case name of the key.<br>
+ * The game only reads the packs, so the writer is kept in the tools source folder and is not part of the apk.<br>
+ * Usage: LevelPackWriter [text directory] [pack directory]
+ * @author GOD
+ */
+public final class LevelPackWriter
+{
+    /**
+     * The directory where our text files are kept, relative to the project.<br>
+     * Only the level packs are read by the game, so the text files are kept with the tools and out of the apk.
+     */
+    public static final String DEFAULT_TEXT_DIRECTORY = "tools/text";
+    
+    /**
+     * The directory where our level packs are kept, relative to the project
+     */
+    public static final String DEFAULT_PACK_DIRECTORY = "assets/pack";
+    
+    /**
+     * The extension of each text file
+     */
+    private static final String EXTENSION = ".txt";
+    
+    /**
+     * Separates the optional size from the pegs of a level, for example "8x12:0101..."
+     */
+    private static final char SIZE_SEPARATOR = ':';
+    
+    private LevelPackWriter()
+    {
+        //no need to create this object
+    }
+    
+    /**
+     * Read the levels of the text file
+     * @param file The text file, each line is the value of every peg of a level.
+     * A square board only needs the pegs, any other size starts with the columns and rows, for example "8x12:0101..."
+     * @return The value of every peg of each level [rows][cols]
+     * @throws Exception
+     */
+    private static List<int[][]> getKeys(final File file) throws Exception
+    {
+        final List<int[][]> keys = new ArrayList<int[][]>();
+        
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        
+        try
+        {
+            String line;
+            
+            while ((line = reader.readLine()) != null)
+            {
+                line = line.trim();
+                
+                if (line.length() == 0)
+                    continue;
+                
+                //determine the size of the board
+                final int separator = line.indexOf(SIZE_SEPARATOR);
+                final int cols, rows;
+                
+                if (separator < 0)
+                {
+                    cols = BoardRules.getDimension(line);
+                    rows = cols;
+                }
+                else
+                {
+                    final String[] size = line.substring(0, separator).split("x");
+                    cols = Integer.parseInt(size[0].trim());
+                    rows = Integer.parseInt(size[1].trim());
+                    line = line.substring(separator + 1);
+                    
+                    if (!BoardRules.isValidSize(cols, rows) || line.length() != cols * rows)
+                        throw new Exception("Invalid level in " + file.getName() + " - " + cols + "x" + rows + ", " + line.length() + " pegs");
+                }
+                
+                final int[][] key = new int[rows][cols];
+                
+                for (int row = 0; row < rows; row++)
+                {
+                    for (int col = 0; col < cols; col++)
+                    {
+                        key[row][col] = line.charAt((row * cols) + col) - '0';
+                    }
+                }
+                
+                keys.add(key);
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        
+        return keys;
+    }
+    
+    /**
+     * Convert every text file to a level pack
+     * @param args [text directory] [pack directory]
+     * @throws Exception
+     */
+    public static void main(final String[] args) throws Exception
+    {
+        final File source = new File((args.length > 0) ? args[0] : DEFAULT_TEXT_DIRECTORY);
+        final File destination = new File((args.length > 1) ? args[1] : DEFAULT_PACK_DIRECTORY);
+        
+        final File[] files = source.listFiles();
+        
+        if (files == null)
+            throw new Exception("Directory not found: " + source.getAbsolutePath());
+        
+        final List<File> texts = new ArrayList<File>();
+        
+        for (File file : files)
+        {
+            if (file.getName().endsWith(EXTENSION))
+                texts.add(file);
+        }
+        
+        final File[] sorted = texts.toArray(new File[texts.size()]);
+        Arrays.sort(sorted);
+        
+        if (sorted.length != TextKey.values().length)
+            throw new Exception("Expected " + TextKey.values().length + " text files, found " + sorted.length);
+        
+        if (!destination.isDirectory() && !destination.mkdirs())
+            throw new Exception("Unable to create directory: " + destination.getAbsolutePath());
+        
+        for (int index = 0; index < sorted.length; index++)
+        {
+            final TextKey key = TextKey.values()[index];
+            final List<int[][]> keys = getKeys(sorted[index]);
+            final File file = new File(destination, key.getFileName());
+            
+            final OutputStream output = new BufferedOutputStream(new FileOutputStream(file));
+            
+            try
+            {
+                LevelPack.write(output, keys);
+            }
+            finally
+            {
+                output.close();
+            }
+            
+            System.out.println(key + ": " + keys.size() + " levels, " + sorted[index].length() + " bytes -> " + file.length() + " bytes");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.gamesbykevin.squares.solver;
+
+import com.gamesbykevin.squares.pack.LevelPack;
+import com.gamesbykevin.squares.pack.LevelPackWriter;
+import com.gamesbykevin.squares.pack.TextKey;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+
+/**
+ * Count the exact number of solutions of every bundled level, to help design and tune the difficulty of the levels.<br>
+ * This runs on a plain JVM without Android, the level packs are read from the assets folder the same as the {@link Verifier}.<br>
+ * Like the verifier it is kept in the tools source folder.<br>
+ * Usage: Counter [pack directory] [report file]
+ * @author GOD
+ */
+public final class Counter
+{
+    private Counter()
+    {
+        //only the main method is used
+    }
+    
+    /**
+     * Count the solutions of the level packs and print the report
+     * @param args [pack directory] [report file]
+     * @throws Exception
+     */
+    public static void main(final String[] args) throws Exception
+    {
+        final File directory = new File((args.length > 0) ? args[0] : LevelPackWriter.DEFAULT_PACK_DIRECTORY);
+        final PrintStream out = (args.length > 1) ? new PrintStream(new FileOutputStream(args[1]), true, "UTF-8") : System.out;
+        
+        if (!directory.isDirectory())
+            throw new Exception("Directory not found: " + directory.getAbsolutePath());
+        
+        final TransferSolver solver = new TransferSolver();
+        
+        try
+        {
+            out.println("pack\tlevel\tsolutions\tmicroseconds");
+            
+            for (TextKey key : TextKey.values())
+            {
+                //each level pack is named after its key
+                final FileInputStream input = new FileInputStream(new File(directory, key.getFileName()));
+                
+                final LevelPack pack;
+                
+                try
+                {
+                    pack = LevelPack.read(input);
+                }
+                finally
+                {
+                    input.close();
+                }
+                
+                int unique = 0, skipped = 0;
+                long max = 0;
+                
+                final long start = System.nanoTime();
+                
+                for (int index = 0; index < pack.getCount(); index++)
+                {
+                    final int[][] solution = pack.getKey(index);
+                    final Puzzle puzzle = Puzzle.fromSolution(solution, Verifier.getRange(solution));
+                    
+                    //the board is too wide to count
+                    if (!TransferSolver.isSupported(puzzle))
+                    {
+                        skipped++;
+                        continue;
+                    }
+                    
+                    final long time = System.nanoTime();
+                    final long count = solver.count(puzzle);
+                    
+                    if (count == 1)
+                        unique++;
+                    
+                    max = Math.max(max, count);
+                    
+                    //levels are 1 based for display
+                    out.println(key + "\t" + (index + 1) + "\t" + count + "\t" + ((System.nanoTime() - time) / 1000));
+                }
+                
+                System.out.println(key + ": " + pack.getCount() + " levels, unique=" + unique + ", most solutions=" + max +
+                    ", skipped=" + skipped + ", " + ((System.nanoTime() - start) / 1000000) + "ms");
+            }
+        }
+        finally
+        {
+            if (out != System.out)
+                out.close();
+        }
+    }
+}
\ No newline at end of file
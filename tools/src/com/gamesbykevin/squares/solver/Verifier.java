@@ -0,0 +1,272 @@
+package com.gamesbykevin.squares.solver;
+
+import com.gamesbykevin.squares.pack.LevelPack;
+import com.gamesbykevin.squares.pack.LevelPackWriter;
+import com.gamesbykevin.squares.pack.TextKey;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verify every bundled level has exactly one solution.<br>
+ * This runs on a plain JVM without Android, the level packs are read from the assets folder
+ * the same way the board loads them and every level is solved on a pool of threads, one per core.<br>
+ * It is only run during development, so it is kept in the tools source folder and is not part of the apk.<br>
+ * Usage: Verifier [pack directory] [report file]
+ * @author GOD
+ */
+public final class Verifier
+{
+    /**
+     * We only need to find 2 solutions to know a level is not unique
+     */
+    private static final int LIMIT = 2;
+    
+    //the threads solving the levels
+    private ExecutorService executor;
+    
+    //each thread gets its own solvers
+    private final ThreadLocal<SolverFactory> solvers = new ThreadLocal<SolverFactory>()
+    {
+        @Override
+        protected SolverFactory initialValue()
+        {
+            return new SolverFactory();
+        }
+    };
+    
+    /**
+     * The outcome of a single level
+     */
+    public static final class Level
+    {
+        //the pack this level is in
+        private final TextKey key;
+        
+        //the index of the level in the pack
+        private final int index;
+        
+        //the number of solutions found (up to the limit)
+        private final int count;
+        
+        //the time it took to solve (nanoseconds)
+        private final long time;
+        
+        private Level(final TextKey key, final int index, final int count, final long time)
+        {
+            this.key = key;
+            this.index = index;
+            this.count = count;
+            this.time = time;
+        }
+        
+        public TextKey getKey()
+        {
+            return this.key;
+        }
+        
+        public int getIndex()
+        {
+            return this.index;
+        }
+        
+        public int getCount()
+        {
+            return this.count;
+        }
+        
+        public long getTime()
+        {
+            return this.time;
+        }
+    }
+    
+    /**
+     * Create a new verifier
+     * @param threads The number of threads to solve the levels
+     */
+    public Verifier(final int threads)
+    {
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+    
+    /**
+     * Solve every level in the pack
+     * @param key The key of the level pack
+     * @param pack The level pack
+     * @return The outcome of each level, in the same order as the pack
+     * @throws Exception If a level could not be solved
+     */
+    public List<Level> verify(final TextKey key, final LevelPack pack) throws Exception
+    {
+        final List<Future<Level>> futures = new ArrayList<Future<Level>>(pack.getCount());
+        
+        for (int index = 0; index < pack.getCount(); index++)
+        {
+            final int levelIndex = index;
+            
+            futures.add(executor.submit(new Callable<Level>()
+            {
+                @Override
+                public Level call() throws Exception
+                {
+                    //create the puzzle from the decoded level
+                    final int[][] solution = pack.getKey(levelIndex);
+                    final Puzzle puzzle = Puzzle.fromSolution(solution, getRange(solution));
+                    
+                    final long start = System.nanoTime();
+                    
+                    final Result result = solvers.get().getSolver(puzzle).solve(puzzle, LIMIT);
+                    
+                    return new Level(key, levelIndex, result.getCount(), System.nanoTime() - start);
+                }
+            }));
+        }
+        
+        //wait for every level to finish
+        final List<Level> levels = new ArrayList<Level>(futures.size());
+        
+        for (Future<Level> future : futures)
+        {
+            levels.add(future.get());
+        }
+        
+        return levels;
+    }
+    
+    /**
+     * Stop the threads
+     */
+    public void dispose()
+    {
+        if (executor != null)
+        {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+    
+    /**
+     * Get the range of the level, the same way the board does
+     * @param key The value of every peg [rows][cols]
+     * @return The number of values each peg can have
+     */
+    static int getRange(final int[][] key)
+    {
+        int range = 0;
+        
+        for (int[] row : key)
+        {
+            for (int value : row)
+            {
+                if (value >= range)
+                    range = value + 1;
+            }
+        }
+        
+        return range;
+    }
+    
+    /**
+     * Verify the level packs and print the report
+     * @param args [pack directory] [report file]
+     * @throws Exception
+     */
+    public static void main(final String[] args) throws Exception
+    {
+        final File directory = new File((args.length > 0) ? args[0] : LevelPackWriter.DEFAULT_PACK_DIRECTORY);
+        final PrintStream out = (args.length > 1) ? new PrintStream(new FileOutputStream(args[1]), true, "UTF-8") : System.out;
+        
+        if (!directory.isDirectory())
+            throw new Exception("Directory not found: " + directory.getAbsolutePath());
+        
+        final Verifier verifier = new Verifier(Runtime.getRuntime().availableProcessors());
+        
+        //the number of levels that are not unique
+        int failures = 0;
+        
+        try
+        {
+            out.println("pack\tlevel\tsolutions\tmicroseconds");
+            
+            final List<String> summary = new ArrayList<String>();
+            
+            for (TextKey key : TextKey.values())
+            {
+                //each level pack is named after its key
+                final FileInputStream input = new FileInputStream(new File(directory, key.getFileName()));
+                
+                final LevelPack pack;
+                
+                try
+                {
+                    pack = LevelPack.read(input);
+                }
+                finally
+                {
+                    input.close();
+                }
+                
+                final List<Level> levels = verifier.verify(key, pack);
+                
+                int zero = 0, one = 0, many = 0;
+                long total = 0, max = 0;
+                
+                for (Level level : levels)
+                {
+                    switch (level.getCount())
+                    {
+                        case 0:
+                            zero++;
+                            break;
+                        
+                        case 1:
+                            one++;
+                            break;
+                        
+                        default:
+                            many++;
+                            break;
+                    }
+                    
+                    total += level.getTime();
+                    max = Math.max(max, level.getTime());
+                    
+                    //levels are 1 based for display
+                    out.println(key + "\t" + (level.getIndex() + 1) + "\t" + ((level.getCount() < LIMIT) ? level.getCount() : LIMIT + "+") + "\t" + (level.getTime() / 1000));
+                }
+                
+                failures += zero + many;
+                
+                summary.add(key + ": " + levels.size() + " levels, zero=" + zero + ", one=" + one + ", many=" + many +
+                    ", average=" + ((levels.isEmpty()) ? 0 : total / levels.size() / 1000) + "us, max=" + (max / 1000) + "us");
+            }
+            
+            out.println();
+            
+            for (String line : summary)
+            {
+                out.println(line);
+            }
+        }
+        finally
+        {
+            verifier.dispose();
+            
+            if (out != System.out)
+                out.close();
+        }
+        
+        //a non-zero exit code fails the pre-release check
+        if (failures > 0)
+            System.exit(1);
+    }
+}
\ No newline at end of file